@@ -39,7 +39,19 @@ public abstract class AbstractDataflowAnalysis<Node, Fact>
 
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        solver = makeSolver(this);
+    }
+
+    /**
+     * Creates a solver of the strategy specified by option {@code solver}
+     * for given analysis. Analyses which solve each method with a
+     * method-specific {@link DataflowAnalysis} can use this method to
+     * create the solver for it.
+     */
+    protected Solver<Node, Fact> makeSolver(DataflowAnalysis<Node, Fact> analysis) {
+        String strategy = getOptions().getString("solver");
+        return strategy == null ? Solver.makeSolver(analysis)
+                : Solver.makeSolver(analysis, strategy);
     }
 
     @Override
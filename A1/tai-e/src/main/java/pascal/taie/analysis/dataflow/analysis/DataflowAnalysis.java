@@ -49,6 +49,17 @@ public interface DataflowAnalysis<Node, Fact> {
      */
     Fact newInitialFact();
 
+    /**
+     * By default, this delegates to {@link #newInitialFact()}. Analyses whose
+     * facts depend on the method being analyzed, e.g., facts indexed by the
+     * variables of the method, can override this method.
+     *
+     * @return new initial fact for non-boundary nodes of given CFG.
+     */
+    default Fact newInitialFact(CFG<Node> cfg) {
+        return newInitialFact();
+    }
+
     /**
      * Meets a fact into another (target) fact.
      * This function will be used to handle control-flow confluences.
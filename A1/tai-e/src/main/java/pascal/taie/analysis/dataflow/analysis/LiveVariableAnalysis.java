@@ -22,11 +22,14 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import pascal.taie.analysis.dataflow.fact.BitSetFact;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.fact.SetFact;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
-import pascal.taie.ir.exp.LValue;
-import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Stmt;
 
@@ -38,8 +41,14 @@ public class LiveVariableAnalysis extends
 
     public static final String ID = "livevar";
 
+    /**
+     * Whether to represent facts as bit vectors indexed by {@link Var#getIndex()}.
+     */
+    private final boolean bitVector;
+
     public LiveVariableAnalysis(AnalysisConfig config) {
         super(config);
+        bitVector = getOptions().getBooleanOrDefault("bit-vector", false);
     }
 
     @Override
@@ -50,7 +59,16 @@ public class LiveVariableAnalysis extends
     @Override
     public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
         // done TODO- finish me      cfg在这里有什么用？
-        return new SetFact<>();
+        return newInitialFact(cfg);
+    }
+
+    @Override
+    public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+        if (bitVector) {
+            IR ir = cfg.getIR();
+            return new BitSetFact<>(ir::getVar, ir.getVars().size());
+        }
+        return newInitialFact();
     }
 
     @Override
@@ -71,25 +89,121 @@ public class LiveVariableAnalysis extends
     @Override
     public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
         // done TODO
-        SetFact<Var> outCopy = out.copy();
-        if(stmt.getDef().isPresent()){
-            LValue lValue = stmt.getDef().get();
-            if(lValue instanceof Var v){
-                outCopy.remove(v);
-            }
+        Var def = stmt.getDef().orElse(null) instanceof Var v ? v : null;
+        Var[] uses = stmt.getUses()
+                .stream()
+                .filter(use -> use instanceof Var)
+                .toArray(Var[]::new);
+        return transfer(def, uses, in, out);
+    }
+
+    /**
+     * Computes in = uses ∪ (out - def) in place.
+     * <p>
+     * The OUT fact of a node only grows during solving, and so does its
+     * IN fact. Thus, IN fact computed before is always a subset of the new
+     * one, and this method only needs to add the new elements into IN fact,
+     * and it detects changes by the size of IN fact.
+     */
+    private static boolean transfer(
+            Var def, Var[] uses, SetFact<Var> in, SetFact<Var> out) {
+        int size = in.size();
+        // def is in IN fact only if it is also a use, in which case
+        // it should be kept
+        boolean killDef = def != null && !in.contains(def);
+        in.union(out);
+        if (killDef) {
+            in.remove(def);
         }
-        for (RValue use : stmt.getUses()) {
-            if(use instanceof Var v){
-                outCopy.add(v);
+        for (Var use : uses) {
+            in.add(use);
+        }
+        return in.size() != size;
+    }
+
+    @Override
+    public DataflowResult<Stmt, SetFact<Var>> analyze(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        return makeSolver(new MethodLiveness(cfg)).solve(cfg);
+    }
+
+    /**
+     * Live variable analysis for a specific method, which precomputes
+     * the variables defined and used by each statement, so that the
+     * transfer function does not query the statements during solving.
+     */
+    private class MethodLiveness implements DataflowAnalysis<Stmt, SetFact<Var>> {
+
+        /**
+         * Variables defined by the statements, indexed by statement indexes.
+         */
+        private final Var[] defs;
+
+        /**
+         * Variables used by the statements, indexed by statement indexes.
+         */
+        private final Var[][] uses;
+
+        private MethodLiveness(CFG<Stmt> cfg) {
+            int size = cfg.getNodes()
+                    .stream()
+                    .mapToInt(Stmt::getIndex)
+                    .max()
+                    .orElse(-1) + 1;
+            defs = new Var[size];
+            uses = new Var[size][];
+            for (Stmt stmt : cfg) {
+                int i = stmt.getIndex();
+                if (stmt.getDef().orElse(null) instanceof Var def) {
+                    defs[i] = def;
+                }
+                uses[i] = stmt.getUses()
+                        .stream()
+                        .filter(use -> use instanceof Var)
+                        .distinct()
+                        .toArray(Var[]::new);
             }
         }
-        if(!in.equals(outCopy)){
-            in.set(outCopy);
-            return true;
-        }else{
-            return false;
+
+        @Override
+        public boolean isForward() {
+            return LiveVariableAnalysis.this.isForward();
+        }
+
+        @Override
+        public SetFact<Var> newBoundaryFact(CFG<Stmt> cfg) {
+            return LiveVariableAnalysis.this.newBoundaryFact(cfg);
         }
-    }
 
+        @Override
+        public SetFact<Var> newInitialFact(CFG<Stmt> cfg) {
+            return LiveVariableAnalysis.this.newInitialFact(cfg);
+        }
 
+        @Override
+        public SetFact<Var> newInitialFact() {
+            return LiveVariableAnalysis.this.newInitialFact();
+        }
+
+        @Override
+        public void meetInto(SetFact<Var> fact, SetFact<Var> target) {
+            LiveVariableAnalysis.this.meetInto(fact, target);
+        }
+
+        @Override
+        public boolean transferNode(Stmt stmt, SetFact<Var> in, SetFact<Var> out) {
+            int i = stmt.getIndex();
+            return transfer(defs[i], uses[i], in, out);
+        }
+
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return LiveVariableAnalysis.this.needTransferEdge(edge);
+        }
+
+        @Override
+        public SetFact<Var> transferEdge(Edge<Stmt> edge, SetFact<Var> nodeFact) {
+            return LiveVariableAnalysis.this.transferEdge(edge, nodeFact);
+        }
+    }
 }
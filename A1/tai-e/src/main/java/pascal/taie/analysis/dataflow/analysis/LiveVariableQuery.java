@@ -0,0 +1,160 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers whether a variable is live at a statement on demand, instead of
+ * solving {@link LiveVariableAnalysis} for all variables of a method.
+ * <p>
+ * When a variable is queried for the first time, this class searches
+ * backward from the statements that use the variable, and stops at
+ * the statements that define it, so the work is bounded by the live
+ * range of the variable instead of the size of the method. The
+ * statements where the variable is live are memoized, so that
+ * subsequent queries on the variable are answered by a lookup.
+ * <p>
+ * The answers are consistent with the results of
+ * {@link LiveVariableAnalysis}, except that the variables live at
+ * the entry of the method (e.g., the used parameters) are reported
+ * as live at the entry node, whose facts the solvers do not compute.
+ */
+public class LiveVariableQuery {
+
+    /**
+     * Key of the query of a method, which is stored in its {@link IR}.
+     */
+    public static final String ID = "livevar-query";
+
+    private final CFG<Stmt> cfg;
+
+    /**
+     * Statements using each variable, built on the first query.
+     */
+    private volatile Map<Var, List<Stmt>> uses;
+
+    /**
+     * Indexes of the statements where each queried variable is live
+     * (i.e., in the IN facts of the statements).
+     */
+    private final Map<Var, BitSet> liveStmts = new ConcurrentHashMap<>();
+
+    public LiveVariableQuery(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+    }
+
+    /**
+     * @return the query of the method of given IR, which is created
+     * on the first call and memoized in the IR.
+     */
+    public static LiveVariableQuery get(IR ir) {
+        return ir.getResult(ID,
+                () -> new LiveVariableQuery(ir.getResult(CFGBuilder.ID)));
+    }
+
+    /**
+     * @return true if given variable is live before given statement,
+     * i.e., it is in the IN fact of the statement.
+     */
+    public boolean isLiveAt(Var var, Stmt stmt) {
+        return getLiveStmts(var).get(stmt.getIndex());
+    }
+
+    /**
+     * @return true if given variable is live after given statement,
+     * i.e., it is in the OUT fact of the statement.
+     */
+    public boolean isLiveAfter(Var var, Stmt stmt) {
+        BitSet live = getLiveStmts(var);
+        for (Stmt succ : cfg.getSuccsOf(stmt)) {
+            if (live.get(succ.getIndex())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BitSet getLiveStmts(Var var) {
+        return liveStmts.computeIfAbsent(var, this::computeLiveStmts);
+    }
+
+    /**
+     * Searches backward from the uses of given variable until reaching
+     * its definitions, and returns the statements where it is live.
+     */
+    private BitSet computeLiveStmts(Var var) {
+        BitSet live = new BitSet();
+        Deque<Stmt> workList = new ArrayDeque<>();
+        for (Stmt use : getUses(var)) {
+            if (!live.get(use.getIndex())) {
+                live.set(use.getIndex());
+                workList.push(use);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Stmt stmt = workList.pop();
+            // var is live after each predecessor, and thus live before
+            // it, unless the predecessor (re)defines var
+            for (Stmt pred : cfg.getPredsOf(stmt)) {
+                if (!live.get(pred.getIndex())
+                        && pred.getDef().orElse(null) != var) {
+                    live.set(pred.getIndex());
+                    workList.push(pred);
+                }
+            }
+        }
+        return live;
+    }
+
+    private List<Stmt> getUses(Var var) {
+        Map<Var, List<Stmt>> uses = this.uses;
+        if (uses == null) {
+            uses = new HashMap<>();
+            for (Stmt stmt : cfg) {
+                for (RValue use : stmt.getUses()) {
+                    if (use instanceof Var v) {
+                        uses.computeIfAbsent(v, __ -> new ArrayList<>())
+                                .add(stmt);
+                    }
+                }
+            }
+            this.uses = uses;
+        }
+        return uses.getOrDefault(var, List.of());
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.util.Indexable;
+import pascal.taie.util.collection.Streams;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Represents set-like data-flow facts as bit vectors.
+ * <p>
+ * Each element is represented by the bit at its {@link Indexable#getIndex()},
+ * so that union, intersection, copy and comparison work on whole words
+ * instead of hashing every element. This requires that all facts which
+ * are met with each other share the same index space, e.g., the variables
+ * of one method. The inherited set of {@link SetFact} is not used: this
+ * class overrides all operations of {@link SetFact}, and a bit-vector fact
+ * equals only to another bit-vector fact with the same elements.
+ *
+ * @param <E> type of elements
+ */
+public class BitSetFact<E extends Indexable> extends SetFact<E> {
+
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /**
+     * Maps indexes back to elements, used when iterating this fact.
+     */
+    private final IntFunction<E> elements;
+
+    private long[] words;
+
+    /**
+     * Constructs a new empty fact.
+     *
+     * @param elements maps an index to the element it represents
+     * @param capacity the expected number of distinct indexes
+     */
+    public BitSetFact(IntFunction<E> elements, int capacity) {
+        this(elements, capacity > 0 ?
+                new long[wordIndex(capacity - 1) + 1] : EMPTY_WORDS);
+    }
+
+    public BitSetFact(IntFunction<E> elements) {
+        this(elements, 0);
+    }
+
+    private BitSetFact(IntFunction<E> elements, long[] words) {
+        super((Void) null);
+        this.elements = elements;
+        this.words = words;
+    }
+
+    private static int wordIndex(int bitIndex) {
+        return bitIndex >> ADDRESS_BITS_PER_WORD;
+    }
+
+    /**
+     * Ensures that {@link #words} can hold the given number of words.
+     */
+    private void ensureCapacity(int wordsRequired) {
+        if (words.length < wordsRequired) {
+            words = Arrays.copyOf(words,
+                    Math.max(2 * words.length, wordsRequired));
+        }
+    }
+
+    /**
+     * @return index of the first set bit at or after {@code from},
+     * or -1 if there is no such bit.
+     */
+    private int nextSetBit(int from) {
+        int u = wordIndex(from);
+        if (u >= words.length) {
+            return -1;
+        }
+        long word = words[u] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (u << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+            }
+            if (++u == words.length) {
+                return -1;
+            }
+            word = words[u];
+        }
+    }
+
+    @Override
+    public boolean contains(E e) {
+        int index = e.getIndex();
+        int u = wordIndex(index);
+        return u < words.length && (words[u] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        int index = e.getIndex();
+        int u = wordIndex(index);
+        ensureCapacity(u + 1);
+        long old = words[u];
+        words[u] = old | (1L << index);
+        return words[u] != old;
+    }
+
+    @Override
+    public boolean remove(E e) {
+        int index = e.getIndex();
+        int u = wordIndex(index);
+        if (u >= words.length) {
+            return false;
+        }
+        long old = words[u];
+        words[u] = old & ~(1L << index);
+        return words[u] != old;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<E> filter) {
+        boolean changed = false;
+        for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+            if (filter.test(elements.apply(i))) {
+                words[wordIndex(i)] &= ~(1L << i);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean union(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] otherWords = that.words;
+            ensureCapacity(otherWords.length);
+            boolean changed = false;
+            for (int i = 0; i < otherWords.length; ++i) {
+                long old = words[i];
+                long word = old | otherWords[i];
+                if (word != old) {
+                    words[i] = word;
+                    changed = true;
+                }
+            }
+            return changed;
+        } else {
+            boolean changed = false;
+            for (E e : (Iterable<E>) other.stream()::iterator) {
+                changed |= add(e);
+            }
+            return changed;
+        }
+    }
+
+    @Override
+    public boolean intersect(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            long[] otherWords = that.words;
+            boolean changed = false;
+            for (int i = 0; i < words.length; ++i) {
+                long old = words[i];
+                long word = i < otherWords.length ? old & otherWords[i] : 0;
+                if (word != old) {
+                    words[i] = word;
+                    changed = true;
+                }
+            }
+            return changed;
+        } else {
+            return removeIf(e -> !other.contains(e));
+        }
+    }
+
+    @Override
+    public void set(SetFact<E> other) {
+        if (other instanceof BitSetFact<E> that) {
+            words = that.words.clone();
+        } else {
+            super.set(other);
+        }
+    }
+
+    @Override
+    public BitSetFact<E> copy() {
+        return new BitSetFact<>(elements, words.clone());
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Stream<E> stream() {
+        return IntStream.iterate(nextSetBit(0), i -> i >= 0, i -> nextSetBit(i + 1))
+                .mapToObj(elements);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BitSetFact<?> that)) {
+            return false;
+        }
+        // trailing zero words do not affect equality
+        long[] longer = words, shorter = that.words;
+        if (longer.length < shorter.length) {
+            longer = that.words;
+            shorter = words;
+        }
+        for (int i = 0; i < shorter.length; ++i) {
+            if (longer[i] != shorter[i]) {
+                return false;
+            }
+        }
+        for (int i = shorter.length; i < longer.length; ++i) {
+            if (longer[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // zero words contribute nothing, which keeps hashCode()
+        // consistent with equals() for facts of different lengths
+        long h = 1234;
+        for (int i = words.length; --i >= 0; ) {
+            h ^= words[i] * (i + 1);
+        }
+        return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+        return Streams.toString(stream());
+    }
+}
@@ -48,6 +48,18 @@ public class SetFact<E> {
         this(Collections.emptySet());
     }
 
+    /**
+     * Constructs a new SetFact for the subclasses which hold the elements
+     * in their own storage, and thus override all operations of this class.
+     * {@link #set} of such facts is always empty.
+     *
+     * @param ownStorage unused, only distinguishes this constructor
+     *                   from {@link #SetFact()}.
+     */
+    protected SetFact(Void ownStorage) {
+        set = Collections.emptySet();
+    }
+
     /**
      * @return true if this set contains the specified element, otherwise false.
      */
@@ -89,7 +101,13 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean union(SetFact<E> other) {
-        return set.addAll(other.set);
+        // reads the elements via stream(), as other fact may hold
+        // its elements in its own storage
+        boolean changed = false;
+        for (E e : (Iterable<E>) other.stream()::iterator) {
+            changed |= add(e);
+        }
+        return changed;
     }
 
     /**
@@ -107,7 +125,7 @@ public class SetFact<E> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean intersect(SetFact<E> other) {
-        return set.retainAll(other.set);
+        return removeIf(e -> !other.contains(e));
     }
 
     /**
@@ -158,9 +176,10 @@ public class SetFact<E> {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof SetFact<?> that)) {
+        if (o == null || getClass() != o.getClass()) {
             return false;
         }
+        SetFact<?> that = (SetFact<?>) o;
         return set.equals(that.set);
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.SCC;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Iterative solver which splits the CFG into strongly connected components
+ * (SCCs) and iterates each component to a local fixed point, in topological
+ * order of the components. Thus, the nodes outside of loops are visited
+ * exactly once, and a loop is re-iterated only until its own facts converge,
+ * instead of sweeping the whole CFG.
+ */
+class SCCIterativeSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    private static final Logger logger = LogManager.getLogger(SCCIterativeSolver.class);
+
+    SCCIterativeSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        // SCC gives the components in reverse topological order, i.e.,
+        // the successors of a component come before the component itself,
+        // which is exactly the order a backward analysis needs
+        List<List<Node>> components = new SCC<>(cfg).getComponents();
+        Map<Node, Integer> postOrder = postOrder(cfg);
+        List<Integer> iterations = new ArrayList<>();
+        for (List<Node> component : components) {
+            if (component.size() == 1 && !isSelfLoop(cfg, component.get(0))) {
+                solveBackward(cfg, result, component.get(0));
+                continue;
+            }
+            // visit successors before predecessors within the loop
+            List<Node> nodes = new ArrayList<>(component);
+            nodes.sort(Comparator.comparing(postOrder::get));
+            int count = 0;
+            boolean changed;
+            do {
+                changed = false;
+                ++count;
+                for (Node node : nodes) {
+                    changed |= solveBackward(cfg, result, node);
+                }
+            } while (changed);
+            iterations.add(count);
+        }
+        logger.debug("{}: {} SCCs, iterations of non-trivial SCCs: {}",
+                cfg.getMethod(), components.size(), iterations);
+    }
+
+    /**
+     * Meets the facts of the successors of given node and applies
+     * the node transfer function.
+     *
+     * @return true if the in fact of the node changed, otherwise false.
+     */
+    private boolean solveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result,
+                                  Node node) {
+        Fact out = result.getOutFact(node);
+        for (Node succ : cfg.getSuccsOf(node)) {
+            analysis.meetInto(result.getInFact(succ), out);
+        }
+        return analysis.transferNode(node, result.getInFact(node), out);
+    }
+
+    private static <Node> boolean isSelfLoop(CFG<Node> cfg, Node node) {
+        return cfg.getSuccsOf(node).contains(node);
+    }
+
+    /**
+     * Numbers the nodes of given CFG in postorder of a depth-first search
+     * from the entry. Nodes that are unreachable from the entry are
+     * numbered after the reachable ones.
+     */
+    private static <Node> Map<Node, Integer> postOrder(CFG<Node> cfg) {
+        Map<Node, Integer> postOrder = Maps.newMap(cfg.getNumberOfNodes());
+        visit(cfg, cfg.getEntry(), postOrder);
+        for (Node node : cfg) {
+            if (!postOrder.containsKey(node)) {
+                visit(cfg, node, postOrder);
+            }
+        }
+        return postOrder;
+    }
+
+    private static <Node> void visit(CFG<Node> cfg, Node start,
+                                     Map<Node, Integer> postOrder) {
+        // all previously visited nodes are finished, and nodes on
+        // the stack are marked by -1 until they are finished
+        int next = postOrder.size();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        postOrder.put(start, -1);
+        stack.push(start);
+        succs.push(cfg.getSuccsOf(start).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (!postOrder.containsKey(succ)) {
+                    postOrder.put(succ, -1);
+                    stack.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postOrder.put(stack.pop(), next++);
+                succs.pop();
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ package pascal.taie.analysis.dataflow.solver;
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.config.ConfigException;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -49,6 +50,25 @@ public abstract class Solver<Node, Fact> {
         return new IterativeSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver of given strategy
+     * for given analysis.
+     *
+     * @param strategy {@code "iterative"} for the round-robin iterative
+     *                 solver, or {@code "scc"} for the iterative solver
+     *                 which iterates each strongly connected component
+     *                 of the CFG to a local fixed point
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String strategy) {
+        return switch (strategy) {
+            case "iterative" -> new IterativeSolver<>(analysis);
+            case "scc" -> new SCCIterativeSolver<>(analysis);
+            default -> throw new ConfigException(
+                    "Unknown solver strategy: " + strategy);
+        };
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
@@ -85,8 +105,8 @@ public abstract class Solver<Node, Fact> {
 //        result.setInFact(cfg.getExit(), analysis.newBoundaryFact(cfg));
         // equally treat nodes
         for(Node node: cfg){
-            result.setInFact(node, analysis.newInitialFact());
-            result.setOutFact(node, analysis.newInitialFact());
+            result.setInFact(node, analysis.newInitialFact(cfg));
+            result.setOutFact(node, analysis.newInitialFact(cfg));
         }
     }
 
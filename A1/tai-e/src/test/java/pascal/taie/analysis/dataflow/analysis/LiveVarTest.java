@@ -22,8 +22,20 @@
 
 package pascal.taie.analysis.dataflow.analysis;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.SetFact;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
 
 public class LiveVarTest {
 
@@ -32,6 +44,67 @@ public class LiveVarTest {
                 LiveVariableAnalysis.ID, "strongly:false");
     }
 
+    void testBitVectorLV(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/livevar",
+                LiveVariableAnalysis.ID, "strongly:false;bit-vector:true");
+    }
+
+    void testSCCSolverLV(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/livevar",
+                LiveVariableAnalysis.ID, "strongly:false;solver:scc");
+    }
+
+    /**
+     * Compares the answers of {@link LiveVariableQuery} with the results
+     * of {@link LiveVariableAnalysis} for all variables and statements.
+     *
+     * @return the number of compared statements that use the variables
+     * they define, e.g., {@code x = x + 1}.
+     */
+    int testQuery(String inputClass) {
+        testLV(inputClass);
+        List<JMethod> methods = World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList();
+        int defUses = 0;
+        for (JMethod method : methods) {
+            IR ir = method.getIR();
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, SetFact<Var>> result =
+                    ir.getResult(LiveVariableAnalysis.ID);
+            LiveVariableQuery query = LiveVariableQuery.get(ir);
+            for (Stmt stmt : cfg) {
+                for (Var var : ir.getVars()) {
+                    String message = method + " " + stmt + " " + var;
+                    if (cfg.isEntry(stmt)) {
+                        // the solvers do not compute the facts of the entry,
+                        // where the query reports the variables live after it
+                        boolean liveAfter = cfg.getSuccsOf(stmt).stream()
+                                .anyMatch(s -> result.getInFact(s).contains(var));
+                        Assert.assertEquals(message,
+                                liveAfter, query.isLiveAt(var, stmt));
+                        Assert.assertEquals(message,
+                                liveAfter, query.isLiveAfter(var, stmt));
+                    } else {
+                        Assert.assertEquals(message,
+                                result.getInFact(stmt).contains(var),
+                                query.isLiveAt(var, stmt));
+                        Assert.assertEquals(message,
+                                result.getOutFact(stmt).contains(var),
+                                query.isLiveAfter(var, stmt));
+                    }
+                }
+                if (stmt.getDef().isPresent() &&
+                        stmt.getUses().contains(stmt.getDef().get())) {
+                    ++defUses;
+                }
+            }
+        }
+        return defUses;
+    }
+
     @Test
     public void testAssign() {
         testLV("Assign");
@@ -61,4 +134,55 @@ public class LiveVarTest {
     public void Reference() {
         testLV("Reference");
     }
+
+    @Test
+    public void BitVectorBranchLoop() {
+        testBitVectorLV("BranchLoop");
+    }
+
+    @Test
+    public void BitVectorFibonacci() {
+        testBitVectorLV("Fibonacci");
+    }
+
+    @Test
+    public void SCCSolverBranchLoop() {
+        testSCCSolverLV("BranchLoop");
+    }
+
+    @Test
+    public void SCCSolverFibonacci() {
+        testSCCSolverLV("Fibonacci");
+    }
+
+    @Test
+    public void QueryAssign() {
+        testQuery("Assign");
+    }
+
+    @Test
+    public void QueryBranch() {
+        testQuery("Branch");
+    }
+
+    @Test
+    public void QueryBranchLoop() {
+        // i++ is i = i + %intconst
+        Assert.assertTrue(testQuery("BranchLoop") > 0);
+    }
+
+    @Test
+    public void QueryArray() {
+        Assert.assertTrue(testQuery("Array") > 0);
+    }
+
+    @Test
+    public void QueryFibonacci() {
+        testQuery("Fibonacci");
+    }
+
+    @Test
+    public void QueryReference() {
+        testQuery("Reference");
+    }
 }
@@ -23,8 +23,11 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.NodeResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.DefinitionStmt;
 import pascal.taie.ir.stmt.Stmt;
@@ -36,8 +39,25 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Sparse engine which propagates values along def-use chains,
+     * or null if the dense data-flow solver is used.
+     */
+    private final SparseConstantPropagation sparse;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        sparse = getOptions().getBooleanOrDefault("sparse", false) ?
+                new SparseConstantPropagation(this) : null;
+    }
+
+    @Override
+    public NodeResult<Stmt, CPFact> analyze(IR ir) {
+        if (sparse != null) {
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            return sparse.solve(cfg);
+        }
+        return super.analyze(ir);
     }
 
     @Override
@@ -0,0 +1,452 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.NodeResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.RValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Sparse constant propagation engine.
+ * <p>
+ * Instead of maintaining a {@link CPFact} for every statement, this engine
+ * builds def-use chains for the variables that can hold integers, and keeps
+ * one lattice value per definition. Values are propagated only along
+ * def-use chains, i.e., when the value of a definition changes, only the
+ * definitions that use it are re-evaluated.
+ * <p>
+ * The def-use chains are derived from the reaching definitions, which are
+ * computed once by a bit-vector analysis over the basic blocks of the CFG.
+ * Only the reaching definitions at the entries of the blocks are kept.
+ * The per-statement facts are not stored; they are rebuilt from the
+ * reaching definitions, which are recomputed from the entry of the block
+ * of the statement, and the values of the definitions when they are
+ * queried from the resulting {@link NodeResult}, and they are the same
+ * as the facts computed by the dense {@link ConstantPropagation}.
+ */
+class SparseConstantPropagation {
+
+    private final ConstantPropagation cp;
+
+    SparseConstantPropagation(ConstantPropagation cp) {
+        this.cp = cp;
+    }
+
+    NodeResult<Stmt, CPFact> solve(CFG<Stmt> cfg) {
+        Result result = new Result(cfg);
+        result.solve();
+        return result;
+    }
+
+    /**
+     * @return the variable defined by given statement if it can hold
+     * integer value, otherwise null.
+     */
+    private static Var getDefIntVar(Stmt stmt) {
+        if (stmt instanceof DefinitionStmt<?, ?> def &&
+                def.getLValue() instanceof Var x &&
+                ConstantPropagation.canHoldInt(x)) {
+            return x;
+        }
+        return null;
+    }
+
+    /**
+     * @return the variables whose values are read when evaluating
+     * given expression by {@link ConstantPropagation#evaluate}.
+     */
+    private static List<Var> getOperands(RValue exp) {
+        if (exp instanceof Var v) {
+            return List.of(v);
+        } else if (exp instanceof BinaryExp b) {
+            return List.of(b.getOperand1(), b.getOperand2());
+        } else {
+            return List.of();
+        }
+    }
+
+    /**
+     * Reaching definitions, def-use chains, and the values of definitions
+     * of a method.
+     * <p>
+     * The definitions are numbered as follows: definition {@code i}
+     * ({@code i < vars.size()}) is the entry node of the CFG, which acts
+     * as the definition of {@code vars.get(i)} when the variable is not
+     * defined in the method, and its value is given by {@link #entryFact};
+     * the other definitions are the statements that define the variables.
+     * <p>
+     * A basic block is a maximal sequence of nodes in which each node but
+     * the first one has a single predecessor, i.e., the previous node,
+     * which has a single successor. The entry node forms a block by itself.
+     */
+    private class Result implements NodeResult<Stmt, CPFact> {
+
+        private final CFG<Stmt> cfg;
+
+        private final IR ir;
+
+        /**
+         * Fact at the entry of the method.
+         */
+        private final CPFact entryFact;
+
+        /**
+         * Variables that can hold integers.
+         */
+        private final List<Var> vars = new ArrayList<>();
+
+        private final Map<Var, Integer> varIds = Maps.newMap();
+
+        /**
+         * Variable defined by each definition, indexed by definition number.
+         */
+        private final List<Var> defVars = new ArrayList<>();
+
+        /**
+         * Statement of each definition, indexed by definition number.
+         */
+        private final List<Stmt> defStmts = new ArrayList<>();
+
+        /**
+         * Definition number of each node, indexed by node index,
+         * or -1 if the node is not a definition.
+         */
+        private final int[] defIds;
+
+        /**
+         * Definitions of each variable, indexed by variable number.
+         */
+        private final BitSet[] varDefs;
+
+        /**
+         * Block number of each node, indexed by node index.
+         */
+        private final int[] blockIds;
+
+        /**
+         * First node of each block, indexed by block number.
+         */
+        private final List<Stmt> blockHeads = new ArrayList<>();
+
+        /**
+         * Definitions reaching the entry of each block,
+         * indexed by block number.
+         */
+        private final List<BitSet> blockDefs = new ArrayList<>();
+
+        /**
+         * Values of the definitions, indexed by definition number.
+         */
+        private final Value[] values;
+
+        /**
+         * Map from a definition to its operands and their reaching definitions.
+         */
+        private final Map<Stmt, Map<Var, List<Stmt>>> useDefs = Maps.newMap();
+
+        /**
+         * Map from a definition to the definitions that use its value.
+         */
+        private final MultiMap<Stmt, Stmt> defUses = Maps.newMultiMap();
+
+        private Result(CFG<Stmt> cfg) {
+            this.cfg = cfg;
+            this.ir = cfg.getIR();
+            this.entryFact = cp.newBoundaryFact(cfg);
+            this.defIds = new int[cfg.getNumberOfNodes()];
+            for (Var var : ir.getVars()) {
+                if (ConstantPropagation.canHoldInt(var)) {
+                    varIds.put(var, vars.size());
+                    vars.add(var);
+                    defVars.add(var);
+                    defStmts.add(cfg.getEntry());
+                }
+            }
+            this.varDefs = new BitSet[vars.size()];
+            for (int i = 0; i < vars.size(); ++i) {
+                varDefs[i] = new BitSet();
+                varDefs[i].set(i);
+            }
+            Arrays.fill(defIds, -1);
+            for (Stmt stmt : ir) {
+                Var x = getDefIntVar(stmt);
+                if (x != null) {
+                    int defId = defStmts.size();
+                    defIds[stmt.getIndex()] = defId;
+                    defVars.add(x);
+                    defStmts.add(stmt);
+                    varDefs[varIds.get(x)].set(defId);
+                }
+            }
+            this.values = new Value[defStmts.size()];
+            Arrays.fill(values, Value.getUndef());
+            this.blockIds = new int[cfg.getNumberOfNodes()];
+            buildBlocks();
+        }
+
+        /**
+         * Partitions the nodes of the CFG into basic blocks.
+         */
+        private void buildBlocks() {
+            Arrays.fill(blockIds, -1);
+            for (Stmt node : cfg) {
+                if (isBlockHead(node)) {
+                    addBlock(node);
+                }
+            }
+            // the nodes in a cycle unreachable from the other nodes
+            for (Stmt node : cfg) {
+                if (blockIds[node.getIndex()] < 0) {
+                    addBlock(node);
+                }
+            }
+        }
+
+        private boolean isBlockHead(Stmt node) {
+            if (cfg.isEntry(node) || cfg.getInDegreeOf(node) != 1) {
+                return true;
+            }
+            Stmt pred = cfg.getPredsOf(node).iterator().next();
+            return cfg.isEntry(pred) || cfg.getOutDegreeOf(pred) != 1;
+        }
+
+        private void addBlock(Stmt head) {
+            int blockId = blockHeads.size();
+            blockHeads.add(head);
+            blockDefs.add(new BitSet());
+            for (Stmt node = head; node != null; ) {
+                blockIds[node.getIndex()] = blockId;
+                Stmt next = cfg.isEntry(node) || cfg.getOutDegreeOf(node) != 1 ?
+                        null : cfg.getSuccsOf(node).iterator().next();
+                node = next != null && blockIds[next.getIndex()] < 0
+                        && !isBlockHead(next) ? next : null;
+            }
+        }
+
+        /**
+         * @return the node following given node in its block,
+         * or null if given node is the last one of the block.
+         */
+        private Stmt getNextInBlock(Stmt node) {
+            if (cfg.isEntry(node) || cfg.getOutDegreeOf(node) != 1) {
+                return null;
+            }
+            Stmt next = cfg.getSuccsOf(node).iterator().next();
+            int blockId = blockIds[node.getIndex()];
+            return blockIds[next.getIndex()] == blockId
+                    && blockHeads.get(blockId) != next ? next : null;
+        }
+
+        private void solve() {
+            computeReachingDefs();
+            for (int i = 0; i < blockHeads.size(); ++i) {
+                BitSet defs = (BitSet) blockDefs.get(i).clone();
+                for (Stmt node = blockHeads.get(i); node != null;
+                     node = getNextInBlock(node)) {
+                    if (defIds[node.getIndex()] >= 0) {
+                        buildChains((DefinitionStmt<?, ?>) node, defs);
+                    }
+                    transfer(node, defs);
+                }
+            }
+            Queue<Stmt> workList = new SetQueue<>();
+            for (Stmt stmt : ir) {
+                if (defIds[stmt.getIndex()] >= 0) {
+                    workList.add(stmt);
+                }
+            }
+            while (!workList.isEmpty()) {
+                Stmt stmt = workList.poll();
+                RValue rvalue = ((DefinitionStmt<?, ?>) stmt).getRValue();
+                Value value = ConstantPropagation.evaluate(rvalue, getOperandFact(stmt));
+                int defId = defIds[stmt.getIndex()];
+                if (!value.equals(values[defId])) {
+                    values[defId] = value;
+                    workList.addAll(defUses.get(stmt));
+                }
+            }
+        }
+
+        /**
+         * Computes the reaching definitions at the entries of all blocks
+         * by a single bit-vector analysis.
+         */
+        private void computeReachingDefs() {
+            int nBlocks = blockHeads.size();
+            BitSet[] outDefs = new BitSet[nBlocks];
+            Queue<Integer> workList = new SetQueue<>();
+            for (int i = 0; i < nBlocks; ++i) {
+                workList.add(i);
+            }
+            while (!workList.isEmpty()) {
+                int blockId = workList.poll();
+                BitSet in = blockDefs.get(blockId);
+                for (Stmt pred : cfg.getPredsOf(blockHeads.get(blockId))) {
+                    BitSet predOut = outDefs[blockIds[pred.getIndex()]];
+                    if (predOut != null) {
+                        in.or(predOut);
+                    }
+                }
+                BitSet out = (BitSet) in.clone();
+                Stmt last = null;
+                for (Stmt node = blockHeads.get(blockId); node != null;
+                     node = getNextInBlock(node)) {
+                    transfer(node, out);
+                    last = node;
+                }
+                if (!out.equals(outDefs[blockId])) {
+                    outDefs[blockId] = out;
+                    cfg.getSuccsOf(last).forEach(succ ->
+                            workList.add(blockIds[succ.getIndex()]));
+                }
+            }
+        }
+
+        /**
+         * Transfers the definitions reaching the program point right before
+         * given node to those right after it.
+         */
+        private void transfer(Stmt node, BitSet defs) {
+            if (cfg.isEntry(node)) {
+                defs.set(0, vars.size());
+            } else {
+                int defId = defIds[node.getIndex()];
+                if (defId >= 0) {
+                    defs.andNot(varDefs[varIds.get(defVars.get(defId))]);
+                    defs.set(defId);
+                }
+            }
+        }
+
+        /**
+         * @return the definitions reaching the program point right before
+         * given node, which are recomputed from the entry of its block.
+         */
+        private BitSet getReachingDefs(Stmt stmt) {
+            int blockId = blockIds[stmt.getIndex()];
+            BitSet defs = (BitSet) blockDefs.get(blockId).clone();
+            for (Stmt node = blockHeads.get(blockId); node != stmt;
+                 node = getNextInBlock(node)) {
+                transfer(node, defs);
+            }
+            return defs;
+        }
+
+        private void buildChains(DefinitionStmt<?, ?> stmt, BitSet reachingDefs) {
+            Map<Var, List<Stmt>> operands = Maps.newHybridMap();
+            for (Var operand : getOperands(stmt.getRValue())) {
+                if (ConstantPropagation.canHoldInt(operand) &&
+                        !operands.containsKey(operand)) {
+                    List<Stmt> defs = getReachingDefs(operand, reachingDefs);
+                    operands.put(operand, defs);
+                    defs.forEach(def -> defUses.put(def, stmt));
+                }
+            }
+            useDefs.put(stmt, operands);
+        }
+
+        /**
+         * @return the values of the operands of given definition.
+         */
+        private CPFact getOperandFact(Stmt stmt) {
+            CPFact fact = new CPFact();
+            useDefs.get(stmt).forEach((operand, defs) ->
+                    fact.update(operand, meet(operand, defs)));
+            return fact;
+        }
+
+        /**
+         * @return the definitions of {@code var} in {@code reachingDefs}.
+         * The entry node of the CFG is included if {@code var} may be
+         * undefined in the method at that point.
+         */
+        private List<Stmt> getReachingDefs(Var var, BitSet reachingDefs) {
+            BitSet defs = (BitSet) reachingDefs.clone();
+            defs.and(varDefs[varIds.get(var)]);
+            List<Stmt> result = new ArrayList<>(defs.cardinality());
+            defs.stream().forEach(defId -> result.add(defStmts.get(defId)));
+            return result;
+        }
+
+        /**
+         * Meets the values of {@code var} given by definitions {@code defs}.
+         */
+        private Value meet(Var var, List<Stmt> defs) {
+            Value value = Value.getUndef();
+            for (Stmt def : defs) {
+                value = cp.meetValue(value, getValue(var, def));
+            }
+            return value;
+        }
+
+        /**
+         * @return the value of {@code var} given by definition {@code def}.
+         */
+        private Value getValue(Var var, Stmt def) {
+            return cfg.isEntry(def) ?
+                    entryFact.get(var) : values[defIds[def.getIndex()]];
+        }
+
+        @Override
+        public CPFact getInFact(Stmt stmt) {
+            CPFact fact = cp.newInitialFact();
+            if (cfg.isEntry(stmt)) {
+                return fact;
+            }
+            getReachingDefs(stmt).stream().forEach(defId -> {
+                Var var = defVars.get(defId);
+                Value value = getValue(var, defStmts.get(defId));
+                fact.update(var, cp.meetValue(fact.get(var), value));
+            });
+            return fact;
+        }
+
+        @Override
+        public CPFact getOutFact(Stmt stmt) {
+            if (cfg.isEntry(stmt)) {
+                return entryFact.copy();
+            }
+            CPFact fact = getInFact(stmt);
+            int defId = defIds[stmt.getIndex()];
+            if (defId >= 0) {
+                fact.update(defVars.get(defId), values[defId]);
+            }
+            return fact;
+        }
+    }
+}
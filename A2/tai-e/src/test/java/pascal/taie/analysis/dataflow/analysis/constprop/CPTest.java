@@ -32,6 +32,11 @@ public class CPTest {
                 ConstantPropagation.ID, "edge-refine:false");
     }
 
+    void testSparseCP(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/constprop/",
+                ConstantPropagation.ID, "edge-refine:false;sparse:true");
+    }
+
     @Test
     public void testAssign() {
         testCP("Assign");
@@ -66,4 +71,14 @@ public class CPTest {
     public void testInterprocedural() {
         testCP("Interprocedural");
     }
+
+    @Test
+    public void testSparseBranchConstant() {
+        testSparseCP("BranchConstant");
+    }
+
+    @Test
+    public void testSparseSimpleBinary() {
+        testSparseCP("SimpleBinary");
+    }
 }
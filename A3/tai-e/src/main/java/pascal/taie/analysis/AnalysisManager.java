@@ -0,0 +1,223 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IR;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.Timer;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Creates and executes analyses based on given analysis configurations.
+ * <p>
+ * Method analyses are run on the methods in scope in parallel. The level
+ * of parallelism is given by option {@code parallelism} of each method
+ * analysis: 1 runs the analysis on the calling thread, a larger number
+ * runs it on a dedicated {@link ForkJoinPool} of that many workers, and
+ * 0 (the default) runs it on the common pool.
+ * <p>
+ * Each {@link IR} is analyzed, and its result is stored, by exactly one
+ * task, so the result holders of the IRs are never accessed concurrently
+ * by an analysis. All tasks complete before the next analysis starts,
+ * which publishes the stored results to that analysis.
+ */
+public class AnalysisManager {
+
+    private static final Logger logger = LogManager.getLogger(AnalysisManager.class);
+
+    /**
+     * Name of the option that specifies the parallelism of method analyses.
+     */
+    private static final String PARALLELISM = "parallelism";
+
+    private List<JClass> classScope;
+
+    private List<JMethod> methodScope;
+
+    public void execute(List<AnalysisConfig> analysisConfigs) {
+        analysisConfigs.forEach(config ->
+                Timer.runAndCount(() -> runAnalysis(config), config.getId()));
+    }
+
+    private void runAnalysis(AnalysisConfig config) {
+        try {
+            Class<?> clazz = Class.forName(config.getAnalysisClass());
+            Constructor<?> ctor = clazz.getConstructor(AnalysisConfig.class);
+            Object analysis = ctor.newInstance(config);
+            if (analysis instanceof ProgramAnalysis) {
+                runProgramAnalysis((ProgramAnalysis) analysis);
+            } else if (analysis instanceof ClassAnalysis) {
+                runClassAnalysis((ClassAnalysis) analysis);
+            } else if (analysis instanceof MethodAnalysis) {
+                runMethodAnalysis((MethodAnalysis) analysis);
+            } else {
+                logger.warn(clazz + " is not an analysis");
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException |
+                 InstantiationException | IllegalAccessException |
+                 InvocationTargetException e) {
+            throw new AnalysisException("Failed to initialize " +
+                    config.getAnalysisClass(), e);
+        }
+    }
+
+    private void runProgramAnalysis(ProgramAnalysis analysis) {
+        Object result = analysis.analyze();
+        if (result != null) {
+            World.get().storeResult(analysis.getId(), result);
+        }
+    }
+
+    private void runClassAnalysis(ClassAnalysis analysis) {
+        getClassScope().parallelStream().forEach(c -> {
+            Object result = analysis.analyze(c);
+            if (result != null) {
+                c.storeResult(analysis.getId(), result);
+            }
+        });
+    }
+
+    private List<JClass> getClassScope() {
+        if (classScope == null) {
+            String scope = World.get().getOptions().getScope();
+            classScope = switch (scope) {
+                case "app" -> World.get().getClassHierarchy()
+                        .applicationClasses().toList();
+                case "all" -> World.get().getClassHierarchy()
+                        .allClasses().toList();
+                case "reachable" -> getReachableMethods()
+                        .map(JMethod::getDeclaringClass)
+                        .distinct()
+                        .toList();
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + scope);
+            };
+            logger.info("{} classes in scope ({}) of class analyses",
+                    classScope.size(), scope);
+        }
+        return classScope;
+    }
+
+    private void runMethodAnalysis(MethodAnalysis analysis) {
+        int parallelism = getParallelism(analysis);
+        if (parallelism == 1) {
+            getMethodScope().forEach(m -> runMethodAnalysis(analysis, m));
+        } else if (parallelism == 0) {
+            getMethodScope().parallelStream()
+                    .forEach(m -> runMethodAnalysis(analysis, m));
+        } else {
+            // parallel streams started from a worker of a ForkJoinPool
+            // run their tasks in that pool
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.submit(() -> getMethodScope().parallelStream()
+                        .forEach(m -> runMethodAnalysis(analysis, m)))
+                        .join();
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void runMethodAnalysis(MethodAnalysis analysis, JMethod method) {
+        IR ir = method.getIR();
+        Object result = analysis.analyze(ir);
+        if (result != null) {
+            ir.storeResult(analysis.getId(), result);
+        }
+    }
+
+    /**
+     * @return the parallelism specified by option {@code parallelism}
+     * of given analysis, or 0 if the option is absent.
+     */
+    private static int getParallelism(MethodAnalysis analysis) {
+        Object value = analysis.getOptions().get(PARALLELISM);
+        if (value == null) {
+            return 0;
+        }
+        int parallelism;
+        try {
+            parallelism = Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            parallelism = -1;
+        }
+        if (parallelism < 0) {
+            throw new ConfigException("Invalid " + PARALLELISM +
+                    " option of " + analysis.getId() + ": " + value);
+        }
+        return parallelism;
+    }
+
+    private List<JMethod> getMethodScope() {
+        if (methodScope == null) {
+            String scope = World.get().getOptions().getScope();
+            methodScope = switch (scope) {
+                case "app", "all" -> getClassScope()
+                        .stream()
+                        .map(JClass::getDeclaredMethods)
+                        .flatMap(Collection::stream)
+                        .filter(m -> !m.isAbstract() && !m.isNative())
+                        .toList();
+                case "reachable" -> getReachableMethods().toList();
+                default -> throw new ConfigException(
+                        "Unexpected scope option: " + scope);
+            };
+            logger.info("{} methods in scope ({}) of method analyses",
+                    methodScope.size(), scope);
+        }
+        return methodScope;
+    }
+
+    /**
+     * @return the methods reachable in the call graph built by analysis
+     * {@code cg}. The call graph classes are not part of this assignment,
+     * thus {@code CallGraph.reachableMethods()} is invoked reflectively.
+     */
+    private static Stream<JMethod> getReachableMethods() {
+        Object callGraph = World.get().getResult("cg");
+        try {
+            Stream<?> methods = (Stream<?>) Class
+                    .forName("pascal.taie.analysis.graph.callgraph.CallGraph")
+                    .getMethod("reachableMethods")
+                    .invoke(callGraph);
+            return methods.map(JMethod.class::cast);
+        } catch (ReflectiveOperationException e) {
+            throw new AnalysisException(
+                    "Failed to obtain reachable methods from call graph", e);
+        }
+    }
+}
@@ -31,21 +31,62 @@ import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 
+import java.util.Collection;
+
 public abstract class AbstractDataflowAnalysis<Node, Fact>
         extends MethodAnalysis
         implements DataflowAnalysis<Node, Fact> {
 
     private final Solver<Node, Fact> solver;
 
+    /**
+     * Whether to keep only the facts at the boundaries of basic blocks
+     * in the results, and recompute the other facts on demand.
+     */
+    private final boolean compactResult;
+
     protected AbstractDataflowAnalysis(AnalysisConfig config) {
         super(config);
-        solver = Solver.makeSolver(this);
+        compactResult = getOptions().getBooleanOrDefault("compact-result", false);
+        solver = makeSolver(this);
+    }
+
+    /**
+     * Creates a solver of the strategy specified by option {@code solver}
+     * for given analysis. Analyses which solve each method with a
+     * method-specific {@link DataflowAnalysis} can use this method to
+     * create the solver for it.
+     */
+    protected Solver<Node, Fact> makeSolver(DataflowAnalysis<Node, Fact> analysis) {
+        String strategy = getOptions().getString("solver");
+        return strategy == null ? Solver.makeSolver(analysis)
+                : Solver.makeSolver(analysis, strategy);
+    }
+
+    /**
+     * @return the solver for solving this analysis on given CFG.
+     */
+    protected Solver<Node, Fact> getSolver(CFG<Node> cfg) {
+        return solver;
     }
 
     @Override
     public DataflowResult<Node, Fact> analyze(IR ir) {
         CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
-        return solver.solve(cfg);
+        return getSolver(cfg).solve(cfg, compactResult);
+    }
+
+    /**
+     * Incrementally re-analyzes given IR after its CFG has been edited.
+     *
+     * @param result the result of this analysis on the IR before the edits
+     * @see Solver#resolve(CFG, DataflowResult, Collection, Collection)
+     */
+    public DataflowResult<Node, Fact> reanalyze(
+            IR ir, DataflowResult<Node, Fact> result,
+            Collection<Node> changedNodes, Collection<Edge<Node>> changedEdges) {
+        CFG<Node> cfg = ir.getResult(CFGBuilder.ID);
+        return getSolver(cfg).resolve(cfg, result, changedNodes, changedEdges);
     }
 
     /**
@@ -51,12 +51,40 @@ public class DeadCodeDetection extends MethodAnalysis {
 
     public static final String ID = "deadcode";
 
+    /**
+     * Whether to detect dead code in the fused mode, which computes
+     * constants and liveness by itself instead of consuming the results
+     * of {@link ConstantPropagation} and {@link LiveVariableAnalysis},
+     * see {@link #analyzeFused(IR)}.
+     */
+    private final boolean fused;
+
+    /**
+     * Constant propagation used by the fused mode.
+     */
+    private final ConstantPropagation constprop;
+
+    /**
+     * Live variable analysis used by the fused mode.
+     */
+    private final LiveVariableAnalysis livevar;
+
     public DeadCodeDetection(AnalysisConfig config) {
         super(config);
+        fused = getOptions().getBooleanOrDefault("fused", false);
+        constprop = fused ?
+                new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID))
+                : null;
+        livevar = fused ?
+                new LiveVariableAnalysis(new AnalysisConfig(LiveVariableAnalysis.ID))
+                : null;
     }
 
     @Override
     public Set<Stmt> analyze(IR ir) {
+        if (fused) {
+            return analyzeFused(ir);
+        }
         // obtain CFG
         CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
         // obtain result of constant propagation
@@ -88,12 +116,10 @@ public class DeadCodeDetection extends MethodAnalysis {
                     Edge.Kind edge2go = conditionRes == 1 ? Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE;
 
                     // 将要走的分支加入queue 并从 dead 中删除
-                    cfg.getOutEdgesOf(ifStmt)
-                            .stream().filter(e -> e.getKind() == edge2go)
-                            .findFirst().ifPresent(edge -> {
-                                Stmt edgeTarget = edge.getTarget();
-                                queue.offer(edgeTarget);
-                            });
+                    Edge<Stmt> edge = getOutEdge(cfg, ifStmt, edge2go);
+                    if (edge != null) {
+                        queue.offer(edge.getTarget());
+                    }
                     continue;
                 }
             }else if(stmt instanceof SwitchStmt switchStmt){
@@ -102,17 +128,11 @@ public class DeadCodeDetection extends MethodAnalysis {
                 if(condition.isConstant()){
                     // 是常数，从edges找对应，找不到就是default
                     int conditionValue = condition.getConstant();
-                    Stmt target;
-                    Optional<Edge<Stmt>> optionalEdge = cfg.getOutEdgesOf(switchStmt).stream()
-                            .filter(Edge::isSwitchCase)
-                            .filter(e -> e.getCaseValue() == conditionValue)
-                            .findFirst();
-                    if(optionalEdge.isPresent()){
-                        target = optionalEdge.get().getTarget();
-                    }else{
-                        // default
-                        target = switchStmt.getDefaultTarget();
-                    }
+                    Edge<Stmt> edge = CaseIndex.of(cfg, switchStmt)
+                            .getEdge(conditionValue);
+                    Stmt target = edge != null ? edge.getTarget()
+                            // default
+                            : switchStmt.getDefaultTarget();
                     queue.offer(target);
                     continue;
                 }
@@ -135,6 +155,199 @@ public class DeadCodeDetection extends MethodAnalysis {
         return deadCode;
     }
 
+    /**
+     * Detects dead code in the fused mode.
+     * <p>
+     * This mode first walks the CFG from the entry and propagates constants
+     * only along the feasible edges, i.e., the edges of {@link If}s and
+     * {@link SwitchStmt}s are pruned on the fly when their conditions are
+     * constants. Then it computes live variables only on the reachable
+     * statements and the feasible edges. Thus, the unreachable code is
+     * never analyzed, and it does not need the results of
+     * {@link ConstantPropagation} and {@link LiveVariableAnalysis}
+     * on the whole CFG.
+     * <p>
+     * As the constants and live variables flowing from unreachable code
+     * are ignored, this mode may find more dead code than the default one.
+     */
+    private Set<Stmt> analyzeFused(IR ir) {
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        int size = cfg.getNodes()
+                .stream()
+                .mapToInt(Stmt::getIndex)
+                .max()
+                .orElse(-1) + 1;
+        // propagate constants along feasible edges
+        CPFact[] inFacts = new CPFact[size];
+        CPFact[] outFacts = new CPFact[size];
+        Set<Edge<Stmt>> feasibleEdges = new HashSet<>();
+        Map<SwitchStmt, CaseIndex> caseIndexes = new HashMap<>();
+        Queue<Stmt> queue = new ArrayDeque<>();
+        boolean[] inQueue = new boolean[size];
+        queue.add(cfg.getEntry());
+        inQueue[cfg.getEntry().getIndex()] = true;
+        while (!queue.isEmpty()) {
+            Stmt stmt = queue.poll();
+            int i = stmt.getIndex();
+            inQueue[i] = false;
+            CPFact in;
+            if (cfg.isEntry(stmt)) {
+                in = constprop.newBoundaryFact(cfg);
+            } else {
+                in = constprop.newInitialFact();
+                for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                    if (feasibleEdges.contains(edge)) {
+                        constprop.meetInto(
+                                outFacts[edge.getSource().getIndex()], in);
+                    }
+                }
+            }
+            inFacts[i] = in;
+            boolean changed = outFacts[i] == null;
+            if (changed) {
+                outFacts[i] = constprop.newInitialFact();
+            }
+            changed |= constprop.transferNode(stmt, in, outFacts[i]);
+            if (changed) {
+                for (Edge<Stmt> edge : getFeasibleOutEdges(
+                        cfg, stmt, in, caseIndexes)) {
+                    feasibleEdges.add(edge);
+                    Stmt target = edge.getTarget();
+                    if (!inQueue[target.getIndex()]) {
+                        inQueue[target.getIndex()] = true;
+                        queue.add(target);
+                    }
+                }
+            }
+        }
+        // compute live variables on reachable statements
+        List<SetFact<Var>> liveIns = new ArrayList<>(Collections.nCopies(size, null));
+        List<SetFact<Var>> liveOuts = new ArrayList<>(Collections.nCopies(size, null));
+        for (Stmt stmt : cfg) {
+            int i = stmt.getIndex();
+            if (inFacts[i] != null) {
+                liveIns.set(i, livevar.newInitialFact());
+                liveOuts.set(i, livevar.newInitialFact());
+                queue.add(stmt);
+                inQueue[i] = true;
+            }
+        }
+        while (!queue.isEmpty()) {
+            Stmt stmt = queue.poll();
+            int i = stmt.getIndex();
+            inQueue[i] = false;
+            SetFact<Var> out = liveOuts.get(i);
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(stmt)) {
+                if (feasibleEdges.contains(edge)) {
+                    livevar.meetInto(liveIns.get(edge.getTarget().getIndex()), out);
+                }
+            }
+            if (livevar.transferNode(stmt, liveIns.get(i), out)) {
+                for (Edge<Stmt> edge : cfg.getInEdgesOf(stmt)) {
+                    Stmt source = edge.getSource();
+                    if (feasibleEdges.contains(edge)
+                            && !inQueue[source.getIndex()]) {
+                        inQueue[source.getIndex()] = true;
+                        queue.add(source);
+                    }
+                }
+            }
+        }
+        // collect unreachable code and dead assignments
+        Set<Stmt> deadCode = new TreeSet<>(Comparator.comparing(Stmt::getIndex));
+        for (Stmt stmt : cfg) {
+            if (cfg.isExit(stmt)) {
+                continue;
+            }
+            int i = stmt.getIndex();
+            if (inFacts[i] == null) {
+                deadCode.add(stmt);
+            } else if (stmt instanceof AssignStmt<?, ?> assignStmt
+                    && hasNoSideEffect(assignStmt.getRValue())
+                    && assignStmt.getLValue() instanceof Var lVar
+                    && !liveOuts.get(i).contains(lVar)) {
+                deadCode.add(stmt);
+            }
+        }
+        return deadCode;
+    }
+
+    /**
+     * @return the out edges of given statement which may be taken
+     * when the statement is executed with given IN fact.
+     */
+    private static Collection<Edge<Stmt>> getFeasibleOutEdges(
+            CFG<Stmt> cfg, Stmt stmt, CPFact in,
+            Map<SwitchStmt, CaseIndex> caseIndexes) {
+        Edge<Stmt> edge = null;
+        if (stmt instanceof If ifStmt) {
+            Value condition = ConstantPropagation.evaluate(
+                    ifStmt.getCondition(), in);
+            if (!condition.isConstant()) {
+                return cfg.getOutEdgesOf(stmt);
+            }
+            edge = getOutEdge(cfg, ifStmt, condition.getConstant() == 1 ?
+                    Edge.Kind.IF_TRUE : Edge.Kind.IF_FALSE);
+        } else if (stmt instanceof SwitchStmt switchStmt) {
+            Value condition = in.get(switchStmt.getVar());
+            if (!condition.isConstant()) {
+                return cfg.getOutEdgesOf(stmt);
+            }
+            CaseIndex caseIndex = caseIndexes.computeIfAbsent(switchStmt,
+                    s -> CaseIndex.of(cfg, s));
+            edge = caseIndex.getEdge(condition.getConstant());
+            if (edge == null) {
+                edge = caseIndex.defaultEdge();
+            }
+        } else {
+            return cfg.getOutEdgesOf(stmt);
+        }
+        return edge != null ? List.of(edge) : List.of();
+    }
+
+    /**
+     * @return the out edge of given kind of given if statement,
+     * or {@code null} if such edge does not exist.
+     */
+    private static Edge<Stmt> getOutEdge(
+            CFG<Stmt> cfg, If ifStmt, Edge.Kind kind) {
+        for (Edge<Stmt> edge : cfg.getOutEdgesOf(ifStmt)) {
+            if (edge.getKind() == kind) {
+                return edge;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Index from the case values of a switch statement to
+     * the corresponding out edges.
+     */
+    private record CaseIndex(Map<Integer, Edge<Stmt>> caseEdges,
+                             Edge<Stmt> defaultEdge) {
+
+        private static CaseIndex of(CFG<Stmt> cfg, SwitchStmt switchStmt) {
+            Map<Integer, Edge<Stmt>> caseEdges = new HashMap<>();
+            Edge<Stmt> defaultEdge = null;
+            for (Edge<Stmt> edge : cfg.getOutEdgesOf(switchStmt)) {
+                if (edge.isSwitchCase()) {
+                    caseEdges.putIfAbsent(edge.getCaseValue(), edge);
+                } else if (edge.getKind() == Edge.Kind.SWITCH_DEFAULT) {
+                    defaultEdge = edge;
+                }
+            }
+            return new CaseIndex(caseEdges, defaultEdge);
+        }
+
+        /**
+         * @return the out edge for given case value, or {@code null}
+         * if the value does not match any case.
+         */
+        private Edge<Stmt> getEdge(int caseValue) {
+            return caseEdges.get(caseValue);
+        }
+    }
+
     /**
      * @return true if given RValue has no side effect, otherwise false.
      */
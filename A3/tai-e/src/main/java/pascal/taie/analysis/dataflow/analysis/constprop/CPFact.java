@@ -48,6 +48,17 @@ public class CPFact extends MapFact<Var, Value> {
         super(map);
     }
 
+    /**
+     * Constructs a CPFact for the subclasses which hold the lattice values
+     * in their own storage; see {@link MapFact#MapFact()}.
+     *
+     * @param ownStorage unused, only distinguishes this constructor
+     *                   from {@link #CPFact()}.
+     */
+    CPFact(Void ownStorage) {
+        super();
+    }
+
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
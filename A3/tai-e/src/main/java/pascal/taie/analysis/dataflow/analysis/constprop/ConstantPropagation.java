@@ -23,7 +23,10 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.solver.Solver;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.exp.*;
 import pascal.taie.ir.stmt.DefinitionStmt;
@@ -36,8 +39,15 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to use {@link IntCPFact}s, which encode lattice values
+     * in primitive arrays, as the facts of this analysis.
+     */
+    private final boolean intFact;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        intFact = getOptions().getBooleanOrDefault("int-fact", false);
     }
 
     @Override
@@ -47,7 +57,8 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
-        CPFact cpFact = new CPFact();
+        CPFact cpFact = intFact ?
+                new IntCPFact(cfg.getIR().getVars().size()) : new CPFact();
         for (Var param : cfg.getIR().getParams()) {
             if(canHoldInt(param))
                 cpFact.update(param, Value.getNAC());
@@ -58,11 +69,16 @@ public class ConstantPropagation extends
 
     @Override
     public CPFact newInitialFact() {
-        return new CPFact();
+        return intFact ? new IntCPFact() : new CPFact();
     }
 
     @Override
     public void meetInto(CPFact fact, CPFact target) {
+        if (fact instanceof IntCPFact intSource
+                && target instanceof IntCPFact intTarget) {
+            intTarget.meet(intSource);
+            return;
+        }
         fact.entries().forEach(varValueEntry -> {
             Var key = varValueEntry.getKey();
             Value value = varValueEntry.getValue();
@@ -99,22 +115,31 @@ public class ConstantPropagation extends
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        boolean change = false;
-
-        for(Var key : in.keySet()){
-            change |= out.update(key, in.get(key));
-        }
-
         if(stmt instanceof DefinitionStmt<?, ?> def){
             LValue left = def.getLValue();
             if(left instanceof Var x){
                 if(canHoldInt(x)){
-                    Value res = evaluate(def.getRValue(), in);
-                    change |= out.update(x, res);
+                    return transfer(x, Evaluator.compile(def.getRValue()), in, out);
                 }
             }
         }
-        return change;
+        return out.copyFrom(in);
+    }
+
+    /**
+     * Transfers {@code in} to {@code out} for a definition of int variable
+     * {@code x} whose right-hand side is evaluated by {@code evaluator}.
+     *
+     * @return true if {@code out} is changed, otherwise false.
+     */
+    private static boolean transfer(Var x, Evaluator evaluator,
+                                    CPFact in, CPFact out) {
+        boolean change = out.copyFrom(in);
+        if (in instanceof IntCPFact intIn
+                && out instanceof IntCPFact intOut) {
+            return intOut.updateEncoded(x, evaluator.evaluateEncoded(intIn)) | change;
+        }
+        return out.update(x, evaluator.evaluate(in)) | change;
     }
 
     /**
@@ -143,66 +168,91 @@ public class ConstantPropagation extends
      * @return the resulting {@link Value}
      */
     public static Value evaluate(Exp exp, CPFact in) {
-        if (exp instanceof Var v) {
-            return in.get(v);
+        return Evaluator.compile(exp).evaluate(in);
+    }
+
+    @Override
+    protected Solver<Stmt, CPFact> getSolver(CFG<Stmt> cfg) {
+        return makeSolver(new MethodConstantPropagation(cfg));
+    }
+
+    /**
+     * Constant propagation for a specific method, which compiles
+     * the right-hand side of each definition of int variables to
+     * an {@link Evaluator} up front, so that the transfer function
+     * does not dispatch on the statements and expressions during solving.
+     */
+    private class MethodConstantPropagation
+            implements DataflowAnalysis<Stmt, CPFact> {
+
+        /**
+         * Int variables defined by the statements, indexed by statement indexes.
+         */
+        private final Var[] defs;
+
+        /**
+         * Evaluators of the right-hand sides of the statements,
+         * indexed by statement indexes.
+         */
+        private final Evaluator[] evaluators;
+
+        private MethodConstantPropagation(CFG<Stmt> cfg) {
+            int size = cfg.getNodes()
+                    .stream()
+                    .mapToInt(Stmt::getIndex)
+                    .max()
+                    .orElse(-1) + 1;
+            defs = new Var[size];
+            evaluators = new Evaluator[size];
+            for (Stmt stmt : cfg) {
+                if (stmt instanceof DefinitionStmt<?, ?> def
+                        && def.getLValue() instanceof Var x
+                        && canHoldInt(x)) {
+                    int i = stmt.getIndex();
+                    defs[i] = x;
+                    evaluators[i] = Evaluator.compile(def.getRValue());
+                }
+            }
         }
 
-        if (exp instanceof IntLiteral i) {
-            return Value.makeConstant(i.getValue());
+        @Override
+        public boolean isForward() {
+            return ConstantPropagation.this.isForward();
         }
 
-        if (!(exp instanceof BinaryExp b)){
-            return Value.getNAC();
+        @Override
+        public CPFact newBoundaryFact(CFG<Stmt> cfg) {
+            return ConstantPropagation.this.newBoundaryFact(cfg);
         }
 
-        Value operand1 = in.get(b.getOperand1());
-        Value operand2 = in.get(b.getOperand2());
-        String operator = b.getOperator().toString();
+        @Override
+        public CPFact newInitialFact() {
+            return ConstantPropagation.this.newInitialFact();
+        }
 
-        if(operand2.isConstant()
-                &&
-                operand2.getConstant() == 0
-                &&
-                ( operator.equals("/") || operator.equals("%") )
-        ){
-            return Value.getUndef();
+        @Override
+        public void meetInto(CPFact fact, CPFact target) {
+            ConstantPropagation.this.meetInto(fact, target);
         }
 
-        if (operand1.isNAC() || operand2.isNAC()) {
-            return Value.getNAC();
+        @Override
+        public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
+            int i = stmt.getIndex();
+            Evaluator evaluator = evaluators[i];
+            if (evaluator == null) {
+                return out.copyFrom(in);
+            }
+            return transfer(defs[i], evaluator, in, out);
         }
 
-        if (operand1.isConstant() && operand2.isConstant()) {
-            int i1 = operand1.getConstant(), i2 = operand2.getConstant();
-            int intValue = switch (operator) {
-                case "+" -> i1 + i2;
-                case "-" -> i1 - i2;
-                case "*" -> i1 * i2;
-                case "/" -> i1 / i2;
-                case "%" -> i1 % i2;
-                case "==" -> bool2int(i1 == i2);
-                case "!=" -> bool2int(i1 != i2);
-                case "<" -> bool2int(i1 < i2);
-                case ">" -> bool2int(i1 > i2);
-                case "<=" -> bool2int(i1 <= i2);
-                case ">=" -> bool2int(i1 >= i2);
-
-                case "<<" -> i1 << i2;
-                case ">>" -> i1 >> i2;
-                case ">>>" -> i1 >>> i2;
-
-                case "|" -> i1 | i2;
-                case "&" -> i1 & i2;
-                case "^" -> i1 ^ i2;
-                default -> throw new IllegalStateException("非法操作符");
-            };
-            return Value.makeConstant(intValue);
-        } else {
-            return Value.getUndef();
+        @Override
+        public boolean needTransferEdge(Edge<Stmt> edge) {
+            return ConstantPropagation.this.needTransferEdge(edge);
         }
-    }
 
-    private static int bool2int(boolean b) {
-        return b ? 1 : 0;
+        @Override
+        public CPFact transferEdge(Edge<Stmt> edge, CPFact nodeFact) {
+            return ConstantPropagation.this.transferEdge(edge, nodeFact);
+        }
     }
 }
@@ -0,0 +1,220 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.ir.exp.BinaryExp;
+import pascal.taie.ir.exp.Exp;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.Var;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Evaluator of a specific expression, which is compiled once from
+ * the expression by {@link #compile(Exp)}, so that evaluating
+ * the expression again and again during solving does not need to
+ * dispatch on the kind of the expression and on its operator.
+ * <p>
+ * This is the only place which defines the semantics of the expressions
+ * for constant propagation, on both {@link Value}s and the encoded values
+ * of {@link IntCPFact}; {@link ConstantPropagation#evaluate(Exp, CPFact)}
+ * also evaluates expressions by their evaluators.
+ */
+abstract class Evaluator {
+
+    /**
+     * Evaluator for the expressions whose values are always NAC.
+     */
+    private static final Evaluator NAC = new Evaluator() {
+
+        @Override
+        Value evaluate(CPFact in) {
+            return Value.getNAC();
+        }
+
+        @Override
+        long evaluateEncoded(IntCPFact in) {
+            return IntCPFact.NAC;
+        }
+    };
+
+    /**
+     * @return the {@link Value} of the expression on given IN fact.
+     */
+    abstract Value evaluate(CPFact in);
+
+    /**
+     * @return the encoded value of the expression on given IN fact.
+     */
+    abstract long evaluateEncoded(IntCPFact in);
+
+    /**
+     * Compiles given expression to its evaluator.
+     */
+    static Evaluator compile(Exp exp) {
+        if (exp instanceof Var v) {
+            return new VarEvaluator(v);
+        }
+        if (exp instanceof IntLiteral i) {
+            return new ConstantEvaluator(i.getValue());
+        }
+        if (exp instanceof BinaryExp b) {
+            return new BinaryEvaluator(b);
+        }
+        return NAC;
+    }
+
+    private static final class VarEvaluator extends Evaluator {
+
+        private final Var var;
+
+        private VarEvaluator(Var var) {
+            this.var = var;
+        }
+
+        @Override
+        Value evaluate(CPFact in) {
+            return in.get(var);
+        }
+
+        @Override
+        long evaluateEncoded(IntCPFact in) {
+            return in.getEncoded(var);
+        }
+    }
+
+    private static final class ConstantEvaluator extends Evaluator {
+
+        private final Value value;
+
+        private final long encoded;
+
+        private ConstantEvaluator(int i) {
+            value = Value.makeConstant(i);
+            encoded = IntCPFact.makeConstant(i);
+        }
+
+        @Override
+        Value evaluate(CPFact in) {
+            return value;
+        }
+
+        @Override
+        long evaluateEncoded(IntCPFact in) {
+            return encoded;
+        }
+    }
+
+    private static final class BinaryEvaluator extends Evaluator {
+
+        private final Var operand1;
+
+        private final Var operand2;
+
+        private final IntBinaryOperator operator;
+
+        /**
+         * Whether the operator is / or %, whose result is UNDEF
+         * when the divisor is 0.
+         */
+        private final boolean division;
+
+        private BinaryEvaluator(BinaryExp exp) {
+            operand1 = exp.getOperand1();
+            operand2 = exp.getOperand2();
+            operator = getOperator(exp.getOperator());
+            String op = exp.getOperator().toString();
+            division = op.equals("/") || op.equals("%");
+        }
+
+        @Override
+        Value evaluate(CPFact in) {
+            Value v1 = in.get(operand1);
+            Value v2 = in.get(operand2);
+            if (division && v2.isConstant() && v2.getConstant() == 0) {
+                return Value.getUndef();
+            }
+            if (v1.isNAC() || v2.isNAC()) {
+                return Value.getNAC();
+            }
+            if (v1.isConstant() && v2.isConstant()) {
+                return Value.makeConstant(operator.applyAsInt(
+                        v1.getConstant(), v2.getConstant()));
+            }
+            return Value.getUndef();
+        }
+
+        @Override
+        long evaluateEncoded(IntCPFact in) {
+            long v1 = in.getEncoded(operand1);
+            long v2 = in.getEncoded(operand2);
+            if (division && IntCPFact.isConstant(v2)
+                    && IntCPFact.getConstant(v2) == 0) {
+                return IntCPFact.UNDEF;
+            }
+            if (v1 == IntCPFact.NAC || v2 == IntCPFact.NAC) {
+                return IntCPFact.NAC;
+            }
+            if (IntCPFact.isConstant(v1) && IntCPFact.isConstant(v2)) {
+                return IntCPFact.makeConstant(operator.applyAsInt(
+                        IntCPFact.getConstant(v1), IntCPFact.getConstant(v2)));
+            }
+            return IntCPFact.UNDEF;
+        }
+
+        /**
+         * @return the function which computes the result of given binary
+         * operator on two constants.
+         */
+        private static IntBinaryOperator getOperator(BinaryExp.Op op) {
+            return switch (op.toString()) {
+                case "+" -> (i1, i2) -> i1 + i2;
+                case "-" -> (i1, i2) -> i1 - i2;
+                case "*" -> (i1, i2) -> i1 * i2;
+                case "/" -> (i1, i2) -> i1 / i2;
+                case "%" -> (i1, i2) -> i1 % i2;
+                case "==" -> (i1, i2) -> bool2int(i1 == i2);
+                case "!=" -> (i1, i2) -> bool2int(i1 != i2);
+                case "<" -> (i1, i2) -> bool2int(i1 < i2);
+                case ">" -> (i1, i2) -> bool2int(i1 > i2);
+                case "<=" -> (i1, i2) -> bool2int(i1 <= i2);
+                case ">=" -> (i1, i2) -> bool2int(i1 >= i2);
+
+                case "<<" -> (i1, i2) -> i1 << i2;
+                case ">>" -> (i1, i2) -> i1 >> i2;
+                case ">>>" -> (i1, i2) -> i1 >>> i2;
+
+                case "|" -> (i1, i2) -> i1 | i2;
+                case "&" -> (i1, i2) -> i1 & i2;
+                case "^" -> (i1, i2) -> i1 ^ i2;
+                default -> (i1, i2) -> {
+                    throw new IllegalStateException("非法操作符");
+                };
+            };
+        }
+
+        private static int bool2int(boolean b) {
+            return b ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.ir.exp.Var;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * {@link CPFact} which encodes the lattice values in a primitive array
+ * indexed by {@link Var#getIndex()}, instead of mapping variables to
+ * {@link Value} objects.
+ * <p>
+ * Each value is encoded as a long: 0 for UNDEF (so that a fresh array
+ * represents a fact where all variables are UNDEF), {@link #NAC} for NAC,
+ * and {@link #CONSTANT} ORed with the 32 bits of the integer for constants.
+ * Meeting and updating facts thus create no objects; {@link Value}s are
+ * only created when the fact is accessed through the {@link CPFact} API,
+ * so that {@link ConstantPropagation#evaluate(pascal.taie.ir.exp.Exp, CPFact)}
+ * and the clients of constant propagation can consume this fact as is.
+ * <p>
+ * The inherited map of {@link CPFact} is not used: this class overrides
+ * all operations of {@link CPFact}, and an IntCPFact equals only to
+ * another IntCPFact with the same values.
+ * <p>
+ * As variable indexes are unique only within a method, an IntCPFact
+ * should hold the variables of a single method.
+ */
+public class IntCPFact extends CPFact {
+
+    static final long UNDEF = 0L;
+
+    static final long CONSTANT = 1L << 32;
+
+    static final long NAC = 1L << 33;
+
+    private static final long[] EMPTY_CELLS = {};
+
+    private static final Var[] EMPTY_VARS = {};
+
+    /**
+     * Encoded values, indexed by variable indexes.
+     */
+    private long[] cells;
+
+    /**
+     * Variables of the (non-UNDEF) cells. As a variable index always
+     * denotes the same variable, this array may be shared by the copies
+     * of this fact until any of them grows.
+     */
+    private Var[] vars;
+
+    public IntCPFact() {
+        this(EMPTY_CELLS, EMPTY_VARS);
+    }
+
+    /**
+     * @param capacity the number of variables that this fact is
+     *                 expected to hold, i.e., the number of variables
+     *                 of the method.
+     */
+    public IntCPFact(int capacity) {
+        this(new long[capacity], new Var[capacity]);
+    }
+
+    private IntCPFact(long[] cells, Var[] vars) {
+        super((Void) null);
+        this.cells = cells;
+        this.vars = vars;
+    }
+
+    // ---------- encoding of lattice values ----------
+    static long encode(Value value) {
+        if (value.isConstant()) {
+            return makeConstant(value.getConstant());
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return UNDEF;
+        }
+    }
+
+    static Value decode(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        } else if (value == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.makeConstant(getConstant(value));
+        }
+    }
+
+    static long makeConstant(int i) {
+        return CONSTANT | (i & 0xffffffffL);
+    }
+
+    static boolean isConstant(long value) {
+        return (value & CONSTANT) != 0;
+    }
+
+    static int getConstant(long value) {
+        return (int) value;
+    }
+
+    /**
+     * Meets two encoded values.
+     */
+    static long meet(long v1, long v2) {
+        if (v1 == UNDEF || v1 == v2) {
+            return v2;
+        } else if (v2 == UNDEF) {
+            return v1;
+        } else {
+            return NAC;
+        }
+    }
+    // ------------------------------------------------
+
+    /**
+     * @return the encoded value of given variable in this fact.
+     */
+    long getEncoded(Var var) {
+        int i = var.getIndex();
+        return i < cells.length ? cells[i] : UNDEF;
+    }
+
+    /**
+     * Updates the encoded value of given variable in this fact.
+     *
+     * @return if the update changes this fact.
+     */
+    boolean updateEncoded(Var var, long value) {
+        int i = var.getIndex();
+        if (i >= cells.length) {
+            if (value == UNDEF) {
+                return false;
+            }
+            grow(i + 1);
+        }
+        if (cells[i] == value) {
+            return false;
+        }
+        cells[i] = value;
+        if (vars[i] == null) {
+            vars[i] = var;
+        }
+        return true;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(minCapacity, cells.length * 2);
+        cells = Arrays.copyOf(cells, capacity);
+        vars = Arrays.copyOf(vars, capacity);
+    }
+
+    /**
+     * Meets given fact into this fact.
+     *
+     * @return if this fact changed as a result of the call.
+     */
+    boolean meet(IntCPFact fact) {
+        long[] other = fact.cells;
+        if (other.length > cells.length) {
+            grow(other.length);
+        }
+        boolean changed = false;
+        for (int i = 0; i < other.length; ++i) {
+            long v = other[i];
+            if (v != UNDEF) {
+                long old = cells[i];
+                long result = meet(old, v);
+                if (result != old) {
+                    cells[i] = result;
+                    if (vars[i] == null) {
+                        vars[i] = fact.vars[i];
+                    }
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public Value get(Var key) {
+        return decode(getEncoded(key));
+    }
+
+    @Override
+    public boolean update(Var key, Value value) {
+        return updateEncoded(key, encode(value));
+    }
+
+    @Override
+    public Value remove(Var key) {
+        long old = getEncoded(key);
+        if (old == UNDEF) {
+            return null;
+        }
+        cells[key.getIndex()] = UNDEF;
+        return decode(old);
+    }
+
+    @Override
+    public boolean copyFrom(MapFact<Var, Value> fact) {
+        if (!(fact instanceof IntCPFact intFact)) {
+            boolean[] changed = { false };
+            fact.forEach((var, value) -> changed[0] |= update(var, value));
+            return changed[0];
+        }
+        long[] other = intFact.cells;
+        if (other.length > cells.length) {
+            grow(other.length);
+        }
+        boolean changed = false;
+        for (int i = 0; i < other.length; ++i) {
+            long v = other[i];
+            if (v != UNDEF && v != cells[i]) {
+                cells[i] = v;
+                if (vars[i] == null) {
+                    vars[i] = intFact.vars[i];
+                }
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public IntCPFact copy() {
+        return new IntCPFact(cells.clone(), vars);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, UNDEF);
+    }
+
+    private IntStream indexes() {
+        return IntStream.range(0, cells.length)
+                .filter(i -> cells[i] != UNDEF);
+    }
+
+    @Override
+    public Set<Var> keySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Var var && getEncoded(var) != UNDEF;
+            }
+
+            @Override
+            public Iterator<Var> iterator() {
+                return new Iterator<>() {
+
+                    private int next = advance(0);
+
+                    private int last = -1;
+
+                    private int advance(int i) {
+                        while (i < cells.length && cells[i] == UNDEF) {
+                            ++i;
+                        }
+                        return i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < cells.length;
+                    }
+
+                    @Override
+                    public Var next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        last = next;
+                        next = advance(next + 1);
+                        return vars[last];
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last < 0) {
+                            throw new IllegalStateException();
+                        }
+                        cells[last] = UNDEF;
+                        last = -1;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) indexes().count();
+            }
+        };
+    }
+
+    @Override
+    public Stream<Map.Entry<Var, Value>> entries() {
+        return indexes().mapToObj(i ->
+                new AbstractMap.SimpleImmutableEntry<>(vars[i], decode(cells[i])));
+    }
+
+    @Override
+    public void forEach(BiConsumer<Var, Value> action) {
+        for (int i = 0; i < cells.length; ++i) {
+            if (cells[i] != UNDEF) {
+                action.accept(vars[i], decode(cells[i]));
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntCPFact that)) {
+            return false;
+        }
+        long[] shorter = cells.length <= that.cells.length ? cells : that.cells;
+        long[] longer = shorter == cells ? that.cells : cells;
+        for (int i = 0; i < longer.length; ++i) {
+            if (longer[i] != (i < shorter.length ? shorter[i] : UNDEF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < cells.length; ++i) {
+            long v = cells[i];
+            if (v != UNDEF) {
+                h += i ^ Long.hashCode(v);
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "{" + indexes()
+                .boxed()
+                .sorted(Comparator.comparing(i -> vars[i].toString()))
+                .map(i -> vars[i] + "=" + decode(cells[i]))
+                .collect(Collectors.joining(", ")) + "}";
+    }
+}
@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.dataflow.fact;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -33,9 +34,27 @@ import java.util.Map;
  */
 public class DataflowResult<Node, Fact> implements NodeResult<Node, Fact> {
 
-    private final Map<Node, Fact> inFacts = new LinkedHashMap<>();
+    private final Map<Node, Fact> inFacts;
 
-    private final Map<Node, Fact> outFacts = new LinkedHashMap<>();
+    private final Map<Node, Fact> outFacts;
+
+    public DataflowResult() {
+        inFacts = new LinkedHashMap<>();
+        outFacts = new LinkedHashMap<>();
+    }
+
+    /**
+     * Constructs a new DataflowResult for the subclasses which hold
+     * the facts in their own storage, and thus override all the getters
+     * and setters of the facts. No maps are allocated for such results.
+     *
+     * @param ownStorage unused, only distinguishes this constructor
+     *                   from {@link #DataflowResult()}.
+     */
+    protected DataflowResult(Void ownStorage) {
+        inFacts = Collections.emptyMap();
+        outFacts = Collections.emptyMap();
+    }
 
     /**
      * @return the flowing-in fact of given node.
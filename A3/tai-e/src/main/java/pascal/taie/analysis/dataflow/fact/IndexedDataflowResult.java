@@ -0,0 +1,90 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import pascal.taie.ir.stmt.Stmt;
+
+import java.util.Arrays;
+
+/**
+ * A {@link DataflowResult} for CFGs whose nodes are {@link Stmt}s.
+ * Instead of hash maps, it keeps the data-flow facts in plain arrays
+ * indexed by {@link Stmt#getIndex()}, which are dense in a method.
+ * The maps of {@link DataflowResult} are not allocated for this result.
+ *
+ * @param <Fact> type of data-flow facts
+ */
+public class IndexedDataflowResult<Fact> extends DataflowResult<Stmt, Fact> {
+
+    private Object[] inFacts;
+
+    private Object[] outFacts;
+
+    /**
+     * @param capacity the expected number of statements, i.e.,
+     *                 the largest statement index plus one
+     */
+    public IndexedDataflowResult(int capacity) {
+        super((Void) null);
+        inFacts = new Object[capacity];
+        outFacts = new Object[capacity];
+    }
+
+    @Override
+    public Fact getInFact(Stmt node) {
+        return get(inFacts, node.getIndex());
+    }
+
+    @Override
+    public void setInFact(Stmt node, Fact fact) {
+        int index = node.getIndex();
+        if (index >= inFacts.length) {
+            inFacts = grow(inFacts, index);
+        }
+        inFacts[index] = fact;
+    }
+
+    @Override
+    public Fact getOutFact(Stmt node) {
+        return get(outFacts, node.getIndex());
+    }
+
+    @Override
+    public void setOutFact(Stmt node, Fact fact) {
+        int index = node.getIndex();
+        if (index >= outFacts.length) {
+            outFacts = grow(outFacts, index);
+        }
+        outFacts[index] = fact;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact get(Object[] facts, int index) {
+        return index < facts.length ? (Fact) facts[index] : null;
+    }
+
+    private static Object[] grow(Object[] facts, int index) {
+        return Arrays.copyOf(facts, Math.max(2 * facts.length, index + 1));
+    }
+}
@@ -24,6 +24,7 @@ package pascal.taie.analysis.dataflow.fact;
 
 import pascal.taie.util.collection.Maps;
 
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
@@ -54,6 +55,15 @@ public class MapFact<K, V> {
         this.map = Maps.newHybridMap(map);
     }
 
+    /**
+     * Constructs a new MapFact for the subclasses which hold the mappings
+     * in their own storage, and thus override all operations of this class.
+     * {@link #map} of such facts is always empty.
+     */
+    protected MapFact() {
+        this.map = Collections.emptyMap();
+    }
+
     /**
      * @return the value to which the specified key is mapped,
      * or null if this map contains no mapping for the key.
@@ -87,8 +97,11 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        // reads the mappings via entries(), as given fact may hold
+        // its mappings in its own storage
         boolean changed = false;
-        for (Map.Entry<K, V> entry : fact.map.entrySet()) {
+        for (Map.Entry<K, V> entry : (Iterable<Map.Entry<K, V>>)
+                fact.entries()::iterator) {
             changed |= update(entry.getKey(), entry.getValue());
         }
         return changed;
@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Basic block of a CFG, i.e., a maximal sequence of nodes where each node
+ * but the first has exactly one predecessor, which is the previous node,
+ * and each node but the last has exactly one successor, which is the next
+ * node. Control can thus only enter a block at its first node and leave
+ * it at its last node.
+ */
+final class BasicBlock<Node> {
+
+    private final int index;
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    private final List<BasicBlock<Node>> preds = new ArrayList<>();
+
+    private final List<BasicBlock<Node>> succs = new ArrayList<>();
+
+    private BasicBlock(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return index of this block in the list returned by {@link #build(CFG)}.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    List<Node> getNodes() {
+        return nodes;
+    }
+
+    Node getFirst() {
+        return nodes.get(0);
+    }
+
+    Node getLast() {
+        return nodes.get(nodes.size() - 1);
+    }
+
+    List<BasicBlock<Node>> getPreds() {
+        return preds;
+    }
+
+    List<BasicBlock<Node>> getSuccs() {
+        return succs;
+    }
+
+    /**
+     * Partitions the nodes of given CFG into basic blocks and connects
+     * the blocks according to the edges of the CFG.
+     *
+     * @return the basic blocks, in the order that their first nodes
+     * are iterated in the CFG.
+     */
+    static <Node> List<BasicBlock<Node>> build(CFG<Node> cfg) {
+        List<BasicBlock<Node>> blocks = new ArrayList<>();
+        Map<Node, BasicBlock<Node>> blockOf = Maps.newMap(cfg.getNumberOfNodes());
+        for (Node node : cfg) {
+            if (isLeader(cfg, node)) {
+                fill(cfg, node, new BasicBlock<>(blocks.size()), blocks, blockOf);
+            }
+        }
+        // nodes on a cycle which is only entered from the cycle itself
+        // have no leader, so starts a block at any of them
+        for (Node node : cfg) {
+            if (!blockOf.containsKey(node)) {
+                fill(cfg, node, new BasicBlock<>(blocks.size()), blocks, blockOf);
+            }
+        }
+        for (BasicBlock<Node> block : blocks) {
+            for (Node succ : cfg.getSuccsOf(block.getLast())) {
+                BasicBlock<Node> succBlock = blockOf.get(succ);
+                block.succs.add(succBlock);
+                succBlock.preds.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    private static <Node> boolean isLeader(CFG<Node> cfg, Node node) {
+        if (cfg.getPredsOf(node).size() != 1) {
+            return true;
+        }
+        Node pred = cfg.getPredsOf(node).iterator().next();
+        return pred.equals(node) || cfg.getSuccsOf(pred).size() != 1;
+    }
+
+    private static <Node> void fill(
+            CFG<Node> cfg, Node leader, BasicBlock<Node> block,
+            List<BasicBlock<Node>> blocks, Map<Node, BasicBlock<Node>> blockOf) {
+        blocks.add(block);
+        Node node = leader;
+        while (true) {
+            block.nodes.add(node);
+            blockOf.put(node, block);
+            if (cfg.getSuccsOf(node).size() != 1) {
+                break;
+            }
+            Node succ = cfg.getSuccsOf(node).iterator().next();
+            if (blockOf.containsKey(succ) || isLeader(cfg, succ)) {
+                break;
+            }
+            node = succ;
+        }
+    }
+}
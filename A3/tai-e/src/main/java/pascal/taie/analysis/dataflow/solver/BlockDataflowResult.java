@@ -0,0 +1,257 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data-flow result which only keeps the facts at the boundaries of
+ * {@link BasicBlock}s, i.e., the IN facts of join points and the OUT facts
+ * of branch points. The facts of the other nodes are recomputed on demand
+ * by replaying the transfer functions of a block from its boundary fact.
+ * The facts of recently queried blocks are kept in a small LRU cache, as
+ * the clients usually query the facts of the nodes one block after another.
+ * <p>
+ * The queries are thread-safe, as the accesses to the cache, which
+ * are updated on reads, are synchronized.
+ */
+class BlockDataflowResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+    /**
+     * Maximum number of blocks whose node facts are cached.
+     */
+    private static final int CACHE_SIZE = 16;
+
+    private final DataflowAnalysis<Node, Fact> analysis;
+
+    private final List<BasicBlock<Node>> blocks;
+
+    /**
+     * For CFGs of {@link Stmt}s, index of the block containing each node,
+     * indexed by {@link Stmt#getIndex()}, where -1 means that the node
+     * is absent; otherwise {@code null}.
+     */
+    private final int[] stmtBlocks;
+
+    /**
+     * For CFGs of {@link Stmt}s, position of each node in its block,
+     * indexed by {@link Stmt#getIndex()}; otherwise {@code null}.
+     */
+    private final int[] stmtPositions;
+
+    /**
+     * For CFGs of other nodes, the block containing each node;
+     * otherwise {@code null}.
+     */
+    private final Map<Node, BasicBlock<Node>> blockOf;
+
+    /**
+     * For CFGs of other nodes, position of each node in its block;
+     * otherwise {@code null}.
+     */
+    private final Map<Node, Integer> positions;
+
+    private final Object[] blockIns;
+
+    private final Object[] blockOuts;
+
+    /**
+     * Facts of the nodes of recently queried blocks, where the facts
+     * of each block are held in {IN facts, OUT facts} array pair.
+     */
+    private final Map<BasicBlock<Node>, Object[][]> cache =
+            new LinkedHashMap<>(CACHE_SIZE * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<BasicBlock<Node>, Object[][]> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            };
+
+    BlockDataflowResult(DataflowAnalysis<Node, Fact> analysis,
+                        List<BasicBlock<Node>> blocks) {
+        this.analysis = analysis;
+        this.blocks = blocks;
+        if (!blocks.isEmpty() && blocks.get(0).getFirst() instanceof Stmt) {
+            int maxIndex = -1;
+            for (BasicBlock<Node> block : blocks) {
+                for (Node node : block.getNodes()) {
+                    maxIndex = Math.max(maxIndex, ((Stmt) node).getIndex());
+                }
+            }
+            stmtBlocks = new int[maxIndex + 1];
+            stmtPositions = new int[maxIndex + 1];
+            Arrays.fill(stmtBlocks, -1);
+            blockOf = null;
+            positions = null;
+        } else {
+            stmtBlocks = null;
+            stmtPositions = null;
+            blockOf = Maps.newMap();
+            positions = Maps.newMap();
+        }
+        for (BasicBlock<Node> block : blocks) {
+            List<Node> nodes = block.getNodes();
+            for (int i = 0; i < nodes.size(); ++i) {
+                Node node = nodes.get(i);
+                if (stmtBlocks != null) {
+                    int index = ((Stmt) node).getIndex();
+                    stmtBlocks[index] = block.getIndex();
+                    stmtPositions[index] = i;
+                } else {
+                    blockOf.put(node, block);
+                    positions.put(node, i);
+                }
+            }
+        }
+        blockIns = new Object[blocks.size()];
+        blockOuts = new Object[blocks.size()];
+    }
+
+    List<BasicBlock<Node>> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return the IN fact of the first node of given block.
+     */
+    @SuppressWarnings("unchecked")
+    Fact getBlockIn(BasicBlock<Node> block) {
+        return (Fact) blockIns[block.getIndex()];
+    }
+
+    void setBlockIn(BasicBlock<Node> block, Fact fact) {
+        blockIns[block.getIndex()] = fact;
+    }
+
+    /**
+     * @return the OUT fact of the last node of given block.
+     */
+    @SuppressWarnings("unchecked")
+    Fact getBlockOut(BasicBlock<Node> block) {
+        return (Fact) blockOuts[block.getIndex()];
+    }
+
+    void setBlockOut(BasicBlock<Node> block, Fact fact) {
+        blockOuts[block.getIndex()] = fact;
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        return getFact(node, 0);
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        return getFact(node, 1);
+    }
+
+    /**
+     * @param side 0 for the IN fact, and 1 for the OUT fact
+     */
+    @SuppressWarnings("unchecked")
+    private Fact getFact(Node node, int side) {
+        BasicBlock<Node> block;
+        int position;
+        if (stmtBlocks != null) {
+            int index = ((Stmt) node).getIndex();
+            if (index < 0 || index >= stmtBlocks.length || stmtBlocks[index] < 0) {
+                return null;
+            }
+            block = blocks.get(stmtBlocks[index]);
+            position = stmtPositions[index];
+        } else {
+            block = blockOf.get(node);
+            if (block == null) {
+                return null;
+            }
+            position = positions.get(node);
+        }
+        return (Fact) getFacts(block)[side][position];
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        throw new UnsupportedOperationException();
+    }
+
+    private synchronized Object[][] getFacts(BasicBlock<Node> block) {
+        Object[][] facts = cache.get(block);
+        if (facts == null) {
+            facts = replay(block);
+            cache.put(block, facts);
+        }
+        return facts;
+    }
+
+    /**
+     * Computes the facts of the nodes in given block by applying
+     * the transfer functions of the nodes to the facts of the block.
+     */
+    private Object[][] replay(BasicBlock<Node> block) {
+        List<Node> nodes = block.getNodes();
+        int last = nodes.size() - 1;
+        Object[] ins = new Object[nodes.size()];
+        Object[] outs = new Object[nodes.size()];
+        ins[0] = getBlockIn(block);
+        outs[last] = getBlockOut(block);
+        if (analysis.isForward()) {
+            for (int i = 0; i < last; ++i) {
+                Fact out = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), getFact(ins, i), out);
+                Fact in = analysis.newInitialFact();
+                analysis.meetInto(out, in);
+                outs[i] = out;
+                ins[i + 1] = in;
+            }
+        } else {
+            for (int i = last; i > 0; --i) {
+                Fact in = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), in, getFact(outs, i));
+                Fact out = analysis.newInitialFact();
+                analysis.meetInto(in, out);
+                ins[i] = in;
+                outs[i - 1] = out;
+            }
+        }
+        return new Object[][]{ ins, outs };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Fact getFact(Object[] facts, int i) {
+        return (Fact) facts[i];
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Work-list solver which works on the {@link BasicBlock}s of the CFG
+ * instead of its nodes. The transfer function of a block is composed of
+ * the transfer functions of its nodes, and only the facts at the
+ * boundaries of blocks are kept during solving, so that straight-line
+ * code costs no work-list operations. The result is a
+ * {@link BlockDataflowResult}, which recomputes the facts of the nodes
+ * inside a block from the facts of the block when they are queried.
+ */
+class BlockSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    BlockSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg, boolean compact) {
+        // the result of this solver is always compact
+        List<BasicBlock<Node>> blocks = BasicBlock.build(cfg);
+        BlockDataflowResult<Node, Fact> result =
+                new BlockDataflowResult<>(analysis, blocks);
+        if (analysis.isForward()) {
+            initializeForward(cfg, blocks, result);
+            doSolveForward(cfg, result);
+        } else {
+            initializeBackward(cfg, blocks, result);
+            doSolveBackward(cfg, result);
+        }
+        return result;
+    }
+
+    private void initializeForward(
+            CFG<Node> cfg, List<BasicBlock<Node>> blocks,
+            BlockDataflowResult<Node, Fact> result) {
+        for (BasicBlock<Node> block : blocks) {
+            result.setBlockIn(block, cfg.isEntry(block.getFirst()) ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact());
+            result.setBlockOut(block, analysis.newInitialFact());
+        }
+    }
+
+    private void initializeBackward(
+            CFG<Node> cfg, List<BasicBlock<Node>> blocks,
+            BlockDataflowResult<Node, Fact> result) {
+        for (BasicBlock<Node> block : blocks) {
+            result.setBlockIn(block, analysis.newInitialFact());
+            result.setBlockOut(block, cfg.isExit(block.getLast()) ?
+                    analysis.newBoundaryFact(cfg) : analysis.newInitialFact());
+        }
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> nodeResult) {
+        BlockDataflowResult<Node, Fact> result =
+                (BlockDataflowResult<Node, Fact>) nodeResult;
+        WorkList<Node> workList = new WorkList<>(result.getBlocks(), false);
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            Fact in = result.getBlockIn(block);
+            for (BasicBlock<Node> pred : block.getPreds()) {
+                analysis.meetInto(result.getBlockOut(pred), in);
+            }
+            List<Node> nodes = block.getNodes();
+            int last = nodes.size() - 1;
+            for (int i = 0; i < last; ++i) {
+                Fact out = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), in, out);
+                in = out;
+            }
+            if (analysis.transferNode(nodes.get(last), in, result.getBlockOut(block))) {
+                block.getSuccs().forEach(workList::add);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> nodeResult) {
+        BlockDataflowResult<Node, Fact> result =
+                (BlockDataflowResult<Node, Fact>) nodeResult;
+        WorkList<Node> workList = new WorkList<>(result.getBlocks(), true);
+        while (!workList.isEmpty()) {
+            BasicBlock<Node> block = workList.poll();
+            Fact out = result.getBlockOut(block);
+            for (BasicBlock<Node> succ : block.getSuccs()) {
+                analysis.meetInto(result.getBlockIn(succ), out);
+            }
+            List<Node> nodes = block.getNodes();
+            for (int i = nodes.size() - 1; i > 0; --i) {
+                Fact in = analysis.newInitialFact();
+                analysis.transferNode(nodes.get(i), in, out);
+                out = in;
+            }
+            if (analysis.transferNode(nodes.get(0), result.getBlockIn(block), out)) {
+                block.getPreds().forEach(workList::add);
+            }
+        }
+    }
+
+    /**
+     * FIFO work-list of blocks which holds each block at most once.
+     */
+    private static class WorkList<Node> {
+
+        private final Queue<BasicBlock<Node>> queue = new ArrayDeque<>();
+
+        private final boolean[] queued;
+
+        /**
+         * @param reverse whether to initially queue the blocks in reverse order
+         */
+        private WorkList(List<BasicBlock<Node>> blocks, boolean reverse) {
+            queued = new boolean[blocks.size()];
+            for (int i = 0; i < blocks.size(); ++i) {
+                add(blocks.get(reverse ? blocks.size() - 1 - i : i));
+            }
+        }
+
+        private void add(BasicBlock<Node> block) {
+            if (!queued[block.getIndex()]) {
+                queued[block.getIndex()] = true;
+                queue.add(block);
+            }
+        }
+
+        private BasicBlock<Node> poll() {
+            BasicBlock<Node> block = queue.poll();
+            queued[block.getIndex()] = false;
+            return block;
+        }
+
+        private boolean isEmpty() {
+            return queue.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list solver which always processes the pending node that comes first
+ * in reverse postorder (for forward analyses) or postorder (for backward
+ * analyses) of the CFG. Each node is queued at most once at any time, so that
+ * a node waits until all of its pending predecessors (successors) have been
+ * processed, which cuts down the number of visits on loop-heavy methods.
+ */
+class PriorityWorkListSolver<Node, Fact> extends Solver<Node, Fact> {
+
+    PriorityWorkListSolver(DataflowAnalysis<Node, Fact> analysis) {
+        super(analysis);
+    }
+
+    @Override
+    protected void doSolveForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        WorkList<Node> workList = new WorkList<>(reversePostOrder(cfg));
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            for (Node pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(result.getOutFact(pred), in);
+            }
+            if (analysis.transferNode(node, in, result.getOutFact(node))) {
+                cfg.getSuccsOf(node).forEach(workList::add);
+            }
+        }
+    }
+
+    @Override
+    protected void doSolveBackward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
+        List<Node> postOrder = reversePostOrder(cfg);
+        Collections.reverse(postOrder);
+        WorkList<Node> workList = new WorkList<>(postOrder);
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact out = result.getOutFact(node);
+            for (Node succ : cfg.getSuccsOf(node)) {
+                analysis.meetInto(result.getInFact(succ), out);
+            }
+            if (analysis.transferNode(node, result.getInFact(node), out)) {
+                cfg.getPredsOf(node).forEach(workList::add);
+            }
+        }
+    }
+
+    /**
+     * Computes reverse postorder of the nodes in given CFG by depth-first
+     * search from the entry. Nodes that are unreachable from the entry
+     * are ordered after all reachable nodes.
+     * <p>
+     * Note that {@link pascal.taie.util.graph.TopoSorter} is not used here,
+     * as it starts from the nodes without successors and thus misses nodes
+     * that cannot reach the exit, e.g., the ones in infinite loops.
+     */
+    static <Node> List<Node> reversePostOrder(CFG<Node> cfg) {
+        List<Node> postOrder = new ArrayList<>(cfg.getNumberOfNodes());
+        Set<Node> visited = Sets.newSet(cfg.getNumberOfNodes());
+        visit(cfg, cfg.getEntry(), visited, postOrder);
+        List<Node> unreachable = new ArrayList<>();
+        for (Node node : cfg) {
+            if (!visited.contains(node)) {
+                visit(cfg, node, visited, unreachable);
+            }
+        }
+        Collections.reverse(postOrder);
+        Collections.reverse(unreachable);
+        postOrder.addAll(unreachable);
+        return postOrder;
+    }
+
+    /**
+     * Iterative depth-first search that appends nodes to {@code postOrder}
+     * once all of their successors have been visited.
+     */
+    private static <Node> void visit(CFG<Node> cfg, Node start,
+                                     Set<Node> visited, List<Node> postOrder) {
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        visited.add(start);
+        stack.push(start);
+        succs.push(cfg.getSuccsOf(start).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Node> it = succs.peek();
+            if (it.hasNext()) {
+                Node succ = it.next();
+                if (visited.add(succ)) {
+                    stack.push(succ);
+                    succs.push(cfg.getSuccsOf(succ).iterator());
+                }
+            } else {
+                postOrder.add(stack.pop());
+                succs.pop();
+            }
+        }
+    }
+
+    /**
+     * Work list without duplicate entries, which always yields the pending
+     * node with the smallest priority. Priorities are the positions of the
+     * nodes in the order given at construction, and initially all nodes
+     * are pending.
+     */
+    private static class WorkList<Node> {
+
+        private final List<Node> nodes;
+
+        private final Map<Node, Integer> priorities;
+
+        private final BitSet pending;
+
+        private WorkList(List<Node> order) {
+            nodes = order;
+            priorities = Maps.newMap(order.size());
+            for (int i = 0; i < order.size(); ++i) {
+                priorities.put(order.get(i), i);
+            }
+            pending = new BitSet(order.size());
+            pending.set(0, order.size());
+        }
+
+        private void add(Node node) {
+            pending.set(priorities.get(node));
+        }
+
+        private Node poll() {
+            int i = pending.nextSetBit(0);
+            pending.clear(i);
+            return nodes.get(i);
+        }
+
+        private boolean isEmpty() {
+            return pending.isEmpty();
+        }
+    }
+}
@@ -24,7 +24,17 @@ package pascal.taie.analysis.dataflow.solver;
 
 import pascal.taie.analysis.dataflow.analysis.DataflowAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.IndexedDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.Set;
 
 /**
  * Base class for data-flow analysis solver, which provides common
@@ -49,6 +59,28 @@ public abstract class Solver<Node, Fact> {
         return new WorkListSolver<>(analysis);
     }
 
+    /**
+     * Static factory method to create a new solver of given strategy
+     * for given analysis.
+     *
+     * @param strategy {@code "worklist"} for the FIFO work-list solver, or
+     *                 {@code "priority"} for the work-list solver which
+     *                 processes nodes in reverse postorder (postorder for
+     *                 backward analyses) without duplicate entries, or
+     *                 {@code "block"} for the work-list solver which works
+     *                 on the basic blocks of the CFG
+     */
+    public static <Node, Fact> Solver<Node, Fact> makeSolver(
+            DataflowAnalysis<Node, Fact> analysis, String strategy) {
+        return switch (strategy) {
+            case "worklist" -> new WorkListSolver<>(analysis);
+            case "priority" -> new PriorityWorkListSolver<>(analysis);
+            case "block" -> new BlockSolver<>(analysis);
+            default -> throw new ConfigException(
+                    "Unknown solver strategy: " + strategy);
+        };
+    }
+
     /**
      * Starts this solver on the given CFG.
      *
@@ -56,18 +88,118 @@ public abstract class Solver<Node, Fact> {
      * @return the analysis result
      */
     public DataflowResult<Node, Fact> solve(CFG<Node> cfg) {
+        return solve(cfg, false);
+    }
+
+    /**
+     * Starts this solver on the given CFG.
+     *
+     * @param cfg     control-flow graph where the analysis is performed on
+     * @param compact whether to return a compact result, which only keeps
+     *                the facts at the boundaries of basic blocks and
+     *                recomputes the other facts on demand. Such a result
+     *                is always solved by {@link BlockSolver}, so that the
+     *                facts of the other nodes are never stored.
+     * @return the analysis result
+     */
+    public DataflowResult<Node, Fact> solve(CFG<Node> cfg, boolean compact) {
+        if (compact) {
+            return new BlockSolver<>(analysis).solve(cfg, true);
+        }
         DataflowResult<Node, Fact> result = initialize(cfg);
         doSolve(cfg, result);
         return result;
     }
 
+    /**
+     * Incrementally re-solves the data-flow problem after the CFG has been
+     * edited. Only the facts of the nodes that are affected by the changes,
+     * i.e., the nodes reachable from (for forward analyses) or reaching (for
+     * backward analyses) the changed nodes, are reset and re-solved; the
+     * facts of all other nodes are reused as is.
+     * <p>
+     * The unchanged nodes must be the same objects as in the CFG where
+     * the given result was computed (and, for CFGs of {@link Stmt}s, keep
+     * their indexes). Nodes that have no facts in the given result, e.g.,
+     * newly-added nodes, are treated as changed nodes. A new node that takes
+     * the index of a removed node has the stale facts of the removed node,
+     * thus it must be given as a changed node.
+     *
+     * @param cfg          the edited control-flow graph
+     * @param result       the result of this solver on the CFG before the
+     *                     edits, which is updated in place. It must not be
+     *                     a compact result.
+     * @param changedNodes nodes whose transfer functions have changed
+     * @param changedEdges edges that have been added to or removed from
+     *                     the CFG
+     * @return the updated result
+     */
+    public DataflowResult<Node, Fact> resolve(
+            CFG<Node> cfg, DataflowResult<Node, Fact> result,
+            Collection<Node> changedNodes, Collection<Edge<Node>> changedEdges) {
+        if (result instanceof BlockDataflowResult) {
+            throw new UnsupportedOperationException(
+                    "Cannot incrementally re-solve compact result");
+        }
+        boolean forward = analysis.isForward();
+        Queue<Node> queue = new ArrayDeque<>(changedNodes);
+        // the IN (OUT) fact of the target (source) of a changed edge
+        // may change in forward (backward) analysis
+        changedEdges.forEach(e -> queue.add(forward ? e.getTarget() : e.getSource()));
+        for (Node node : cfg) {
+            if (result.getInFact(node) == null || result.getOutFact(node) == null) {
+                queue.add(node);
+            }
+        }
+        // collects the affected nodes and resets their facts
+        Set<Node> affected = Sets.newSet();
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            if (cfg.hasNode(node) && affected.add(node)) {
+                boolean boundary = forward ? cfg.isEntry(node) : cfg.isExit(node);
+                result.setInFact(node, boundary ?
+                        analysis.newBoundaryFact(cfg) : analysis.newInitialFact());
+                result.setOutFact(node, boundary ?
+                        analysis.newBoundaryFact(cfg) : analysis.newInitialFact());
+                queue.addAll(forward ? cfg.getSuccsOf(node) : cfg.getPredsOf(node));
+            }
+        }
+        // re-solves the affected nodes, where the facts of unaffected
+        // nodes are final and only flow into the affected region
+        Queue<Node> workList = new ArrayDeque<>();
+        for (Node node : cfg) {
+            if (affected.contains(node)) {
+                workList.add(node);
+            }
+        }
+        while (!workList.isEmpty()) {
+            Node node = workList.poll();
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            if (forward) {
+                cfg.getPredsOf(node).forEach(pred ->
+                        analysis.meetInto(result.getOutFact(pred), in));
+                if (analysis.transferNode(node, in, out)) {
+                    workList.addAll(cfg.getSuccsOf(node));
+                }
+            } else {
+                cfg.getSuccsOf(node).forEach(succ ->
+                        analysis.meetInto(result.getInFact(succ), out));
+                if (analysis.transferNode(node, in, out)) {
+                    workList.addAll(cfg.getPredsOf(node));
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Creates and initializes a new data-flow result for given CFG.
      *
      * @return the initialized data-flow result
      */
     private DataflowResult<Node, Fact> initialize(CFG<Node> cfg) {
-        DataflowResult<Node, Fact> result = new DataflowResult<>();
+        DataflowResult<Node, Fact> result = newResult(cfg);
         if (analysis.isForward()) {
             initializeForward(cfg, result);
         } else {
@@ -76,6 +208,21 @@ public abstract class Solver<Node, Fact> {
         return result;
     }
 
+    /**
+     * Creates an empty data-flow result for given CFG. For CFGs of
+     * {@link Stmt}s, the facts are stored in arrays indexed by
+     * {@link Stmt#getIndex()}, which saves the hash lookups and the
+     * map entries of {@link DataflowResult}.
+     */
+    @SuppressWarnings("unchecked")
+    private DataflowResult<Node, Fact> newResult(CFG<Node> cfg) {
+        if (cfg.getEntry() instanceof Stmt) {
+            return (DataflowResult<Node, Fact>)
+                    new IndexedDataflowResult<Fact>(cfg.getNumberOfNodes());
+        }
+        return new DataflowResult<>();
+    }
+
     protected void initializeForward(CFG<Node> cfg, DataflowResult<Node, Fact> result) {
         result.setInFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));    // 这里是不是直接赋值为 空集 比较好？？
         result.setOutFact(cfg.getEntry(), analysis.newBoundaryFact(cfg));
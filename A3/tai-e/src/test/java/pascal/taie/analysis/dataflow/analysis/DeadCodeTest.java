@@ -34,6 +34,46 @@ public class DeadCodeTest {
                 "-a", "constprop=edge-refine:false");
     }
 
+    void testDCDWithPrioritySolver(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:priority",
+                "-a", "constprop=edge-refine:false;solver:priority");
+    }
+
+    void testDCDWithBlockSolver(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;solver:block",
+                "-a", "constprop=edge-refine:false;solver:block");
+    }
+
+    void testDCDWithCompactResult(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false;compact-result:true",
+                "-a", "constprop=edge-refine:false;compact-result:true");
+    }
+
+    void testDCDWithParallelism(String inputClass, int parallelism) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "parallelism:" + parallelism,
+                "-a", "livevar=strongly:false;parallelism:" + parallelism,
+                "-a", "constprop=edge-refine:false;parallelism:" + parallelism);
+    }
+
+    void testDCDWithIntCPFact(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false;int-fact:true");
+    }
+
+    void testDCDFused(String inputClass) {
+        Tests.test(inputClass, "src/test/resources/dataflow/deadcode/",
+                DeadCodeDetection.ID, "fused:true");
+    }
+
     @Test
     public void testControlFlowUnreachable() {
         testDCD("ControlFlowUnreachable");
@@ -58,4 +98,64 @@ public class DeadCodeTest {
     public void testLoops() {
         testDCD("Loops");
     }
+
+    @Test
+    public void testLoopsWithPrioritySolver() {
+        testDCDWithPrioritySolver("Loops");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchWithIntCPFact() {
+        testDCDWithIntCPFact("UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testLoopsWithIntCPFact() {
+        testDCDWithIntCPFact("Loops");
+    }
+
+    @Test
+    public void testDeadAssignmentSequential() {
+        testDCDWithParallelism("DeadAssignment", 1);
+    }
+
+    @Test
+    public void testDeadAssignmentWithParallelism() {
+        testDCDWithParallelism("DeadAssignment", 4);
+    }
+
+    @Test
+    public void testDeadAssignmentWithBlockSolver() {
+        testDCDWithBlockSolver("DeadAssignment");
+    }
+
+    @Test
+    public void testLoopsWithBlockSolver() {
+        testDCDWithBlockSolver("Loops");
+    }
+
+    @Test
+    public void testUnreachableIfBranchWithCompactResult() {
+        testDCDWithCompactResult("UnreachableIfBranch");
+    }
+
+    @Test
+    public void testLoopsWithCompactResult() {
+        testDCDWithCompactResult("Loops");
+    }
+
+    @Test
+    public void testUnreachableIfBranchFused() {
+        testDCDFused("UnreachableIfBranch");
+    }
+
+    @Test
+    public void testUnreachableSwitchBranchFused() {
+        testDCDFused("UnreachableSwitchBranch");
+    }
+
+    @Test
+    public void testLoopsFused() {
+        testDCDFused("Loops");
+    }
 }
@@ -0,0 +1,260 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.analysis;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.analysis.graph.cfg.EditableCFG;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link AbstractDataflowAnalysis#reanalyze}, whose results
+ * must equal the ones of analyzing the edited CFGs from scratch.
+ */
+public class ReanalyzeTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    private static final List<String> INPUTS = List.of(
+            "Loops", "UnreachableSwitchBranch");
+
+    /**
+     * An edit of a CFG.
+     */
+    private interface Edit {
+
+        /**
+         * Edits the CFG, and records the changed nodes and edges.
+         *
+         * @return {@code false} if the edit is not applicable to the CFG.
+         */
+        boolean apply(EditableCFG cfg, List<Stmt> changedNodes,
+                      List<Edge<Stmt>> changedEdges);
+    }
+
+    void testEdit(Edit edit) {
+        int edited = 0;
+        for (String input : INPUTS) {
+            Tests.test(input, CLASS_PATH, DeadCodeDetection.ID,
+                    "-a", "livevar=strongly:false",
+                    "-a", "constprop=edge-refine:false");
+            for (JMethod method : World.get().getClassHierarchy()
+                    .getClass(input).getDeclaredMethods()) {
+                IR ir = method.getIR();
+                CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+                ConstantPropagation cp = new ConstantPropagation(
+                        new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+                LiveVariableAnalysis lv = new LiveVariableAnalysis(
+                        new AnalysisConfig(LiveVariableAnalysis.ID, "strongly", false));
+                if (check(ir, cfg, cp, edit) & check(ir, cfg, lv, edit)) {
+                    ++edited;
+                }
+                ir.storeResult(CFGBuilder.ID, cfg);
+            }
+        }
+        Assert.assertTrue("The edit is not applicable to any method", edited > 0);
+    }
+
+    /**
+     * Analyzes the IR on a copy of given CFG, edits the copy, and checks
+     * that re-analyzing the IR gives the same result as analyzing it
+     * from scratch.
+     *
+     * @return {@code false} if the edit is not applicable to the CFG.
+     */
+    private static <Fact> boolean check(
+            IR ir, CFG<Stmt> original,
+            AbstractDataflowAnalysis<Stmt, Fact> analysis, Edit edit) {
+        EditableCFG cfg = new EditableCFG(original);
+        ir.storeResult(CFGBuilder.ID, cfg);
+        DataflowResult<Stmt, Fact> result = analysis.analyze(ir);
+        List<Stmt> changedNodes = new ArrayList<>();
+        List<Edge<Stmt>> changedEdges = new ArrayList<>();
+        if (!edit.apply(cfg, changedNodes, changedEdges)) {
+            return false;
+        }
+        analysis.reanalyze(ir, result, changedNodes, changedEdges);
+        DataflowResult<Stmt, Fact> expected = analysis.analyze(ir);
+        for (Stmt node : cfg) {
+            String message = ir.getMethod() + " " + node;
+            Assert.assertEquals(message,
+                    expected.getInFact(node), result.getInFact(node));
+            Assert.assertEquals(message,
+                    expected.getOutFact(node), result.getOutFact(node));
+        }
+        return true;
+    }
+
+    /**
+     * @return the first statement of the method.
+     */
+    private static Stmt getFirst(CFG<Stmt> cfg) {
+        return CollectionUtils.getOne(cfg.getSuccsOf(cfg.getEntry()));
+    }
+
+    /**
+     * @return a statement with one predecessor and one successor,
+     * or {@code null} if there is no such statement.
+     */
+    private static Stmt getStraight(CFG<Stmt> cfg) {
+        for (Stmt node : cfg) {
+            if (!cfg.isEntry(node) && !cfg.isExit(node) &&
+                    cfg.getPredsOf(node).size() == 1 &&
+                    cfg.getSuccsOf(node).size() == 1) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return a new node whose index is not used by the nodes of the CFG.
+     */
+    private static Stmt newNode(CFG<Stmt> cfg) {
+        Stmt node = new Nop();
+        node.setIndex(cfg.getNodes().stream()
+                .mapToInt(Stmt::getIndex)
+                .max()
+                .orElse(-1) + 1);
+        return node;
+    }
+
+    @Test
+    public void testAddEdge() {
+        // add a back edge from a statement that returns to the first statement
+        testEdit((cfg, changedNodes, changedEdges) -> {
+            Stmt first = getFirst(cfg);
+            for (Stmt pred : cfg.getPredsOf(cfg.getExit())) {
+                if (!cfg.isEntry(pred) && !cfg.hasEdge(pred, first)) {
+                    changedEdges.add(cfg.addEdge(pred, first));
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    @Test
+    public void testRemoveEdge() {
+        // remove a branch of a statement, which may make some
+        // statements unreachable
+        testEdit((cfg, changedNodes, changedEdges) -> {
+            for (Stmt node : cfg) {
+                if (cfg.getOutEdgesOf(node).size() > 1) {
+                    Edge<Stmt> edge = cfg.getOutEdgesOf(node).iterator().next();
+                    cfg.removeEdge(edge);
+                    changedEdges.add(edge);
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    @Test
+    public void testRemoveNode() {
+        // the removed node is ignored, and its predecessor is
+        // connected to its successor
+        testEdit((cfg, changedNodes, changedEdges) -> {
+            Stmt node = getStraight(cfg);
+            if (node == null) {
+                return false;
+            }
+            Stmt pred = CollectionUtils.getOne(cfg.getPredsOf(node));
+            Stmt succ = CollectionUtils.getOne(cfg.getSuccsOf(node));
+            changedEdges.addAll(cfg.removeNode(node));
+            changedEdges.add(cfg.addEdge(pred, succ));
+            changedNodes.add(node);
+            return true;
+        });
+    }
+
+    @Test
+    public void testAddNode() {
+        // insert a new node after the entry, which has no facts
+        // in the old result
+        testEdit((cfg, changedNodes, changedEdges) -> {
+            Stmt entry = cfg.getEntry();
+            Stmt first = getFirst(cfg);
+            Stmt node = newNode(cfg);
+            Edge<Stmt> edge = CollectionUtils.getOne(cfg.getOutEdgesOf(entry));
+            cfg.removeEdge(edge);
+            cfg.addNode(node);
+            changedEdges.add(edge);
+            changedEdges.add(cfg.addEdge(entry, node));
+            changedEdges.add(cfg.addEdge(node, first));
+            return true;
+        });
+    }
+
+    @Test
+    public void testReplaceNode() {
+        // the new node takes the index of the removed node, thus it has
+        // the stale facts of the removed node in the old result, which
+        // must be reset as the node is changed
+        testEdit((cfg, changedNodes, changedEdges) -> {
+            Stmt node = getStraight(cfg);
+            if (node == null) {
+                return false;
+            }
+            Stmt pred = CollectionUtils.getOne(cfg.getPredsOf(node));
+            Stmt succ = CollectionUtils.getOne(cfg.getSuccsOf(node));
+            Stmt replacement = new Nop();
+            replacement.setIndex(node.getIndex());
+            changedEdges.addAll(cfg.removeNode(node));
+            cfg.addNode(replacement);
+            changedEdges.add(cfg.addEdge(pred, replacement));
+            changedEdges.add(cfg.addEdge(replacement, succ));
+            changedNodes.add(node);
+            changedNodes.add(replacement);
+            return true;
+        });
+    }
+
+    @Test
+    public void testChangeBoundary() {
+        // the entry and the exit are reset to the boundary facts,
+        // e.g., the parameters of use(int) are NAC at the entry
+        testEdit((cfg, changedNodes, changedEdges) -> {
+            changedNodes.add(cfg.getEntry());
+            changedNodes.add(cfg.getExit());
+            return true;
+        });
+    }
+}
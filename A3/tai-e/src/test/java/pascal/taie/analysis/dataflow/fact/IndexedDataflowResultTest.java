@@ -0,0 +1,94 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.dataflow.fact;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.World;
+import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.analysis.DeadCodeDetection;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Nop;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests that {@link IndexedDataflowResult} holds the same facts as
+ * {@link DataflowResult} on the CFGs of real methods.
+ */
+public class IndexedDataflowResultTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/deadcode/";
+
+    @Test
+    public void testSameFacts() {
+        Tests.test("Loops", CLASS_PATH, DeadCodeDetection.ID,
+                "-a", "livevar=strongly:false",
+                "-a", "constprop=edge-refine:false");
+        ConstantPropagation cp = new ConstantPropagation(
+                new AnalysisConfig(ConstantPropagation.ID, "edge-refine", false));
+        for (JMethod method : World.get().getClassHierarchy()
+                .getClass("Loops").getDeclaredMethods()) {
+            IR ir = method.getIR();
+            CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+            DataflowResult<Stmt, CPFact> solved = cp.analyze(ir);
+            Assert.assertTrue(solved instanceof IndexedDataflowResult);
+            // fills both results in the same (shuffled) order, and starts
+            // the indexed result with no capacity, so that it has to grow
+            List<Stmt> nodes = new ArrayList<>(cfg.getNodes());
+            Collections.shuffle(nodes);
+            DataflowResult<Stmt, CPFact> expected = new DataflowResult<>();
+            DataflowResult<Stmt, CPFact> indexed = new IndexedDataflowResult<>(0);
+            for (Stmt node : nodes) {
+                for (DataflowResult<Stmt, CPFact> result : List.of(expected, indexed)) {
+                    result.setInFact(node, solved.getInFact(node));
+                    result.setOutFact(node, solved.getOutFact(node));
+                }
+            }
+            for (Stmt node : cfg) {
+                String message = method + " " + node;
+                Assert.assertNotNull(message, expected.getOutFact(node));
+                Assert.assertSame(message,
+                        expected.getInFact(node), indexed.getInFact(node));
+                Assert.assertSame(message,
+                        expected.getOutFact(node), indexed.getOutFact(node));
+            }
+            // a node absent from the CFG has no facts in either result
+            Stmt absent = new Nop();
+            absent.setIndex(cfg.getNumberOfNodes() * 2);
+            Assert.assertNull(expected.getInFact(absent));
+            Assert.assertNull(indexed.getInFact(absent));
+            Assert.assertNull(indexed.getOutFact(absent));
+        }
+    }
+}
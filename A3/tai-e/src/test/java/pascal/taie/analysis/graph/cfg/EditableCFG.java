@@ -0,0 +1,169 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.analysis.graph.cfg;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Copy of a {@link CFG} of {@link Stmt}s, which can be edited
+ * for testing the incremental solving of data-flow analyses.
+ */
+public class EditableCFG implements CFG<Stmt> {
+
+    private final CFG<Stmt> cfg;
+
+    private final Set<Stmt> nodes = new LinkedHashSet<>();
+
+    private final Map<Stmt, Set<Edge<Stmt>>> inEdges = new LinkedHashMap<>();
+
+    private final Map<Stmt, Set<Edge<Stmt>>> outEdges = new LinkedHashMap<>();
+
+    public EditableCFG(CFG<Stmt> cfg) {
+        this.cfg = cfg;
+        cfg.forEach(this::addNode);
+        cfg.forEach(node -> cfg.getOutEdgesOf(node).forEach(this::addEdge));
+    }
+
+    public void addNode(Stmt node) {
+        nodes.add(node);
+    }
+
+    /**
+     * Removes given node and its edges.
+     *
+     * @return the removed edges.
+     */
+    public List<Edge<Stmt>> removeNode(Stmt node) {
+        List<Edge<Stmt>> removed = new ArrayList<>(getInEdgesOf(node));
+        removed.addAll(getOutEdgesOf(node));
+        removed.forEach(this::removeEdge);
+        nodes.remove(node);
+        return removed;
+    }
+
+    /**
+     * Adds an edge from {@code source} to {@code target}.
+     *
+     * @return the added edge.
+     */
+    public Edge<Stmt> addEdge(Stmt source, Stmt target) {
+        Edge<Stmt> edge = new Edge<>(Edge.Kind.GOTO, source, target);
+        addEdge(edge);
+        return edge;
+    }
+
+    private void addEdge(Edge<Stmt> edge) {
+        outEdges.computeIfAbsent(edge.getSource(), n -> new LinkedHashSet<>())
+                .add(edge);
+        inEdges.computeIfAbsent(edge.getTarget(), n -> new LinkedHashSet<>())
+                .add(edge);
+    }
+
+    public void removeEdge(Edge<Stmt> edge) {
+        outEdges.getOrDefault(edge.getSource(), Set.of()).remove(edge);
+        inEdges.getOrDefault(edge.getTarget(), Set.of()).remove(edge);
+    }
+
+    @Override
+    public IR getIR() {
+        return cfg.getIR();
+    }
+
+    @Override
+    public JMethod getMethod() {
+        return cfg.getMethod();
+    }
+
+    @Override
+    public Stmt getEntry() {
+        return cfg.getEntry();
+    }
+
+    @Override
+    public Stmt getExit() {
+        return cfg.getExit();
+    }
+
+    @Override
+    public boolean isEntry(Stmt node) {
+        return node == getEntry();
+    }
+
+    @Override
+    public boolean isExit(Stmt node) {
+        return node == getExit();
+    }
+
+    @Override
+    public Set<Edge<Stmt>> getInEdgesOf(Stmt node) {
+        return Collections.unmodifiableSet(
+                inEdges.getOrDefault(node, Set.of()));
+    }
+
+    @Override
+    public Set<Edge<Stmt>> getOutEdgesOf(Stmt node) {
+        return Collections.unmodifiableSet(
+                outEdges.getOrDefault(node, Set.of()));
+    }
+
+    @Override
+    public boolean hasNode(Stmt node) {
+        return nodes.contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt node) {
+        return getInEdgesOf(node).stream()
+                .map(Edge::getSource)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt node) {
+        return getOutEdgesOf(node).stream()
+                .map(Edge::getTarget)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(nodes);
+    }
+}
@@ -22,9 +22,11 @@
 
 package pascal.taie.analysis;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
 import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.config.AnalysisConfig;
@@ -38,6 +40,7 @@ import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Pair;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -106,9 +109,39 @@ public class ResultProcessor extends ProgramAnalysis {
         if (getOptions().getBoolean("log-mismatches")) {
             mismatches.forEach(logger::info);
         }
+        String metricsFile = getOptions().getString("metrics-file");
+        if (metricsFile != null) {
+            @SuppressWarnings("unchecked")
+            List<String> analyses = (List<String>) getOptions().get("analyses");
+            dumpMetrics(analyses, metricsFile);
+        }
         return mismatches;
     }
 
+    /**
+     * Dumps the {@link SolverMetrics} of given analyses to given file
+     * in JSON format. The analyses without metrics are skipped.
+     */
+    private static void dumpMetrics(List<String> analyses, String file) {
+        List<Map<String, Object>> metrics = analyses.stream()
+                .map(id -> World.get().<SolverMetrics>getResult(
+                        SolverMetrics.getKey(id)))
+                .filter(Objects::nonNull)
+                .map(SolverMetrics::toMap)
+                .toList();
+        if (metrics.isEmpty()) {
+            logger.warn("No solver metrics of {}, please enable option" +
+                    " 'metrics' of the analyses", analyses);
+        }
+        try {
+            new ObjectMapper()
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(new File(file), metrics);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write solver metrics", e);
+        }
+    }
+
     private void setOutput() {
         String output = getOptions().getString("file");
         if (output != null) {
@@ -23,6 +23,7 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.fact.MapFact;
+import pascal.taie.analysis.dataflow.fact.PersistentMap;
 import pascal.taie.ir.exp.Var;
 
 import java.util.Collections;
@@ -48,6 +49,14 @@ public class CPFact extends MapFact<Var, Value> {
         super(map);
     }
 
+    /**
+     * @return a new empty CPFact backed by a {@link PersistentMap},
+     * so that copying the fact (and its copies) takes constant time.
+     */
+    public static CPFact newPersistentFact() {
+        return new CPFact(new PersistentMap<>());
+    }
+
     /**
      * @return the value of given variable in this fact,
      * or UNDEF the variable is absent in this fact.
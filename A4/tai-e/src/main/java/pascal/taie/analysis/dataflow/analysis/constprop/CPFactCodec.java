@@ -0,0 +1,95 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.fact.FactCodec;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+
+import java.nio.ByteBuffer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link FactCodec} for {@link CPFact}s.
+ * <p>
+ * A fact is encoded as the number of its entries followed by the entries,
+ * each of which consists of the index of the variable, the kind of
+ * the value, and the constant if the value is a constant.
+ * As variable indexes are unique only within a method, the fact of
+ * a node should only contain the variables of the method of the node.
+ *
+ * @param <Node> type of nodes
+ */
+public class CPFactCodec<Node> implements FactCodec<Node, CPFact> {
+
+    private static final byte CONSTANT = 1;
+
+    private static final byte NAC = 2;
+
+    private final Function<Node, IR> irOf;
+
+    private final Supplier<CPFact> factFactory;
+
+    /**
+     * @param irOf        returns the IR containing given node
+     * @param factFactory creates the empty facts for decoding
+     */
+    public CPFactCodec(Function<Node, IR> irOf, Supplier<CPFact> factFactory) {
+        this.irOf = irOf;
+        this.factFactory = factFactory;
+    }
+
+    @Override
+    public byte[] encode(Node node, CPFact fact) {
+        int[] size = { Integer.BYTES };
+        fact.forEach((var, value) -> size[0] += Integer.BYTES + 1 +
+                (value.isConstant() ? Integer.BYTES : 0));
+        ByteBuffer buffer = ByteBuffer.allocate(size[0]);
+        buffer.putInt(fact.keySet().size());
+        fact.forEach((var, value) -> {
+            buffer.putInt(var.getIndex());
+            if (value.isConstant()) {
+                buffer.put(CONSTANT);
+                buffer.putInt(value.getConstant());
+            } else {
+                buffer.put(NAC);
+            }
+        });
+        return buffer.array();
+    }
+
+    @Override
+    public CPFact decode(Node node, ByteBuffer buffer) {
+        IR ir = irOf.apply(node);
+        CPFact fact = factFactory.get();
+        int size = buffer.getInt();
+        for (int i = 0; i < size; ++i) {
+            Var var = ir.getVar(buffer.getInt());
+            Value value = buffer.get() == CONSTANT ?
+                    Value.makeConstant(buffer.getInt()) : Value.getNAC();
+            fact.update(var, value);
+        }
+        return fact;
+    }
+}
@@ -36,8 +36,15 @@ public class ConstantPropagation extends
 
     public static final String ID = "constprop";
 
+    /**
+     * Whether to back the facts by persistent maps, which makes
+     * copying facts cheap at the cost of slower updates.
+     */
+    private final boolean persistent;
+
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
+        persistent = getOptions().getBooleanOrDefault("persistent", false);
     }
 
     @Override
@@ -48,7 +55,7 @@ public class ConstantPropagation extends
     @Override
     public CPFact newBoundaryFact(CFG<Stmt> cfg) {
         // TODO - finish me ------done
-        CPFact cpFact = new CPFact();
+        CPFact cpFact = newInitialFact();
         for (Var param : cfg.getIR().getParams()) {
             if(canHoldInt(param))
                 cpFact.update(param, Value.getNAC());
@@ -60,7 +67,7 @@ public class ConstantPropagation extends
     @Override
     public CPFact newInitialFact() {
         // TODO - finish me -------done
-        return new CPFact();
+        return persistent ? CPFact.newPersistentFact() : new CPFact();
     }
 
     @Override
@@ -104,11 +111,7 @@ public class ConstantPropagation extends
 
     @Override
     public boolean transferNode(Stmt stmt, CPFact in, CPFact out) {
-        boolean change = false;
-
-        for(Var key : in.keySet()){
-            change |= out.update(key, in.get(key));
-        }
+        boolean change = out.copyFrom(in);
 
         if(stmt instanceof DefinitionStmt<?, ?> def){
             LValue left = def.getLValue();
@@ -0,0 +1,46 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts data-flow facts to bytes and back, so that the facts
+ * can be stored outside the Java heap, e.g., by {@link MappedDataflowResult}.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public interface FactCodec<Node, Fact> {
+
+    /**
+     * @return the bytes of the fact associated with given node.
+     */
+    byte[] encode(Node node, Fact fact);
+
+    /**
+     * Decodes the fact associated with given node from the remaining
+     * bytes of given buffer.
+     */
+    Fact decode(Node node, ByteBuffer buffer);
+}
@@ -48,10 +48,15 @@ public class MapFact<K, V> {
     /**
      * Constructs a new MapFact with the same mappings as specified Map.
      *
+     * If the given map is a {@link PersistentMap}, the new fact is also
+     * backed by a {@link PersistentMap}, which shares the mappings with
+     * the given one, and the construction takes constant time.
+     *
      * @param map the map whose mappings are to be placed in this map.
      */
     public MapFact(Map<K, V> map) {
-        this.map = Maps.newHybridMap(map);
+        this.map = map instanceof PersistentMap<K, V> persistentMap ?
+                persistentMap.copy() : Maps.newHybridMap(map);
     }
 
     /**
@@ -87,6 +92,12 @@ public class MapFact<K, V> {
      * @return true if this fact changed as a result of the call, otherwise false.
      */
     public boolean copyFrom(MapFact<K, V> fact) {
+        if (map.isEmpty() && map instanceof PersistentMap
+                && fact.map instanceof PersistentMap) {
+            // shares the mappings of given fact in constant time
+            map.putAll(fact.map);
+            return !map.isEmpty();
+        }
         boolean changed = false;
         for (Map.Entry<K, V> entry : fact.map.entrySet()) {
             changed |= update(entry.getKey(), entry.getValue());
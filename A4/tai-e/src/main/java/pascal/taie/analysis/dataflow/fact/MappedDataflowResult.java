@@ -0,0 +1,294 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DataflowResult} which keeps the facts in a memory-mapped
+ * temporary file instead of the Java heap, and caches the facts of
+ * a bounded number of recently used nodes on the heap.
+ * <p>
+ * The facts are converted to bytes by a {@link FactCodec}. The fact of
+ * each node occupies a slot in the file, which is reused when the fact
+ * is written again if the slot is large enough, otherwise the fact is
+ * moved to a slot of twice the size. The slots abandoned by moved facts
+ * are reused for other facts of the same slot size, thus the file never
+ * holds more than one free slot per moved fact, and its size is bounded
+ * by about twice the total size of the slots in use.
+ * <p>
+ * Cached facts are written back to the file only when they are evicted
+ * from the cache, and only if they were set by
+ * {@link #setInFact(Object, Object)} or {@link #setOutFact(Object, Object)}.
+ * Thus, the clients which modify a fact obtained from this result must
+ * set the fact again after the modification.
+ * <p>
+ * The file is deleted when it is closed, either explicitly by
+ * {@link #close()}, or when this result becomes unreachable.
+ * After this result is closed, its facts are no longer accessible.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <Node> type of nodes
+ * @param <Fact> type of data-flow facts
+ */
+public class MappedDataflowResult<Node, Fact> extends DataflowResult<Node, Fact>
+        implements AutoCloseable {
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * Size of each memory-mapped segment of the file.
+     */
+    private static final int SEGMENT_SIZE = 1 << 26;
+
+    private static final int MIN_SLOT_SIZE = 16;
+
+    private final FactCodec<Node, Fact> codec;
+
+    private final FileChannel channel;
+
+    private final Cleaner.Cleanable cleanable;
+
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /**
+     * End of the used part of the file.
+     */
+    private long end;
+
+    private final Map<Node, Integer> nodeIds = new HashMap<>();
+
+    /**
+     * Offsets, lengths and sizes of the slots in the file. The slot of
+     * IN (resp. OUT) fact of the node with id i is 2i (resp. 2i+1).
+     * A negative offset means that the fact has never been written.
+     */
+    private long[] offsets = new long[0];
+
+    private int[] lengths = new int[0];
+
+    private int[] slotSizes = new int[0];
+
+    /**
+     * Map from a slot size to the offsets of the free slots of that size.
+     */
+    private final Map<Integer, Deque<Long>> freeSlots = new HashMap<>();
+
+    private final Map<Integer, CachedFact<Node, Fact>> cache;
+
+    /**
+     * @param codec     codec of the facts
+     * @param cacheSize maximum number of facts cached on the heap
+     */
+    public MappedDataflowResult(FactCodec<Node, Fact> codec, int cacheSize) {
+        this.codec = codec;
+        try {
+            Path file = Files.createTempFile("tai-e-facts", ".bin");
+            channel = FileChannel.open(file, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create fact file", e);
+        }
+        cleanable = CLEANER.register(this, new ChannelCloser(channel));
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Integer, CachedFact<Node, Fact>> eldest) {
+                if (size() > cacheSize) {
+                    CachedFact<Node, Fact> cached = eldest.getValue();
+                    if (cached.dirty()) {
+                        write(eldest.getKey(), cached.node(), cached.fact());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public Fact getInFact(Node node) {
+        return getFact(node, 0);
+    }
+
+    @Override
+    public void setInFact(Node node, Fact fact) {
+        setFact(node, 0, fact);
+    }
+
+    @Override
+    public Fact getOutFact(Node node) {
+        return getFact(node, 1);
+    }
+
+    @Override
+    public void setOutFact(Node node, Fact fact) {
+        setFact(node, 1, fact);
+    }
+
+    private Fact getFact(Node node, int side) {
+        Integer id = nodeIds.get(node);
+        if (id == null) {
+            return null;
+        }
+        int slot = 2 * id + side;
+        CachedFact<Node, Fact> cached = cache.get(slot);
+        if (cached != null) {
+            return cached.fact();
+        }
+        if (offsets[slot] < 0) {
+            return null;
+        }
+        Fact fact = codec.decode(node, read(slot));
+        cache.put(slot, new CachedFact<>(node, fact, false));
+        return fact;
+    }
+
+    private void setFact(Node node, int side, Fact fact) {
+        int slot = 2 * getId(node) + side;
+        cache.put(slot, new CachedFact<>(node, fact, true));
+    }
+
+    private int getId(Node node) {
+        return nodeIds.computeIfAbsent(node, n -> {
+            int id = nodeIds.size();
+            if (2 * id + 1 >= offsets.length) {
+                int length = Math.max(64, offsets.length * 2);
+                int oldLength = offsets.length;
+                offsets = Arrays.copyOf(offsets, length);
+                Arrays.fill(offsets, oldLength, length, -1);
+                lengths = Arrays.copyOf(lengths, length);
+                slotSizes = Arrays.copyOf(slotSizes, length);
+            }
+            return id;
+        });
+    }
+
+    private ByteBuffer read(int slot) {
+        long offset = offsets[slot];
+        return getSegment(offset).slice(
+                (int) (offset % SEGMENT_SIZE), lengths[slot]);
+    }
+
+    private void write(int slot, Node node, Fact fact) {
+        byte[] bytes = codec.encode(node, fact);
+        if (bytes.length > SEGMENT_SIZE) {
+            throw new IllegalStateException("Fact of " + node +
+                    " is too large to store: " + bytes.length + " bytes");
+        }
+        if (offsets[slot] < 0 || bytes.length > slotSizes[slot]) {
+            int size = Math.max(MIN_SLOT_SIZE, slotSizes[slot] * 2);
+            while (size < bytes.length) {
+                size *= 2;
+            }
+            size = Math.min(size, SEGMENT_SIZE);
+            if (offsets[slot] >= 0) {
+                freeSlots.computeIfAbsent(slotSizes[slot], k -> new ArrayDeque<>())
+                        .push(offsets[slot]);
+            }
+            offsets[slot] = allocate(size);
+            slotSizes[slot] = size;
+        }
+        long offset = offsets[slot];
+        getSegment(offset).put((int) (offset % SEGMENT_SIZE), bytes);
+        lengths[slot] = bytes.length;
+    }
+
+    /**
+     * @return the offset of a slot of given size, which is a free slot
+     * of the size if there is one, otherwise a new slot at the end of
+     * the file.
+     */
+    private long allocate(int size) {
+        Deque<Long> free = freeSlots.get(size);
+        if (free != null && !free.isEmpty()) {
+            return free.pop();
+        }
+        // slots do not span segments
+        if (end / SEGMENT_SIZE != (end + size - 1) / SEGMENT_SIZE) {
+            end = (end / SEGMENT_SIZE + 1) * SEGMENT_SIZE;
+        }
+        long offset = end;
+        end += size;
+        return offset;
+    }
+
+    /**
+     * Closes and deletes the file of this result, and discards the facts.
+     */
+    @Override
+    public void close() {
+        cache.clear();
+        segments.clear();
+        cleanable.clean();
+    }
+
+    private MappedByteBuffer getSegment(long offset) {
+        int index = (int) (offset / SEGMENT_SIZE);
+        while (segments.size() <= index) {
+            try {
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                        (long) segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to map fact file", e);
+            }
+        }
+        return segments.get(index);
+    }
+
+    private record CachedFact<Node, Fact>(Node node, Fact fact, boolean dirty) {
+    }
+
+    /**
+     * Closes the file channel. This action must not refer to the result,
+     * otherwise the result would never become unreachable.
+     */
+    private record ChannelCloser(FileChannel channel) implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close fact file", e);
+            }
+        }
+    }
+}
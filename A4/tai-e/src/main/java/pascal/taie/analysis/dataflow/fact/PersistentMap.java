@@ -0,0 +1,555 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.fact;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Map backed by a persistent hash array mapped trie (HAMT).
+ * <p>
+ * The trie nodes are immutable, and each update path-copies only the
+ * nodes from the root to the modified entry, so that {@link #copy()}
+ * simply shares the root and takes constant time. This suits data-flow
+ * facts which are copied far more often than they are modified.
+ * <p>
+ * This map does not support {@code null} values.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Marker for absent keys, as {@code null} may be a legal key.
+     */
+    private static final Object NOT_FOUND = new Object();
+
+    /**
+     * Root of the trie, or null if this map is empty.
+     */
+    private Node root;
+
+    private int size;
+
+    public PersistentMap() {
+    }
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Creates and returns a copy of this map in constant time.
+     * The copy shares all trie nodes with this map, and subsequent
+     * modifications of either map are not visible to the other.
+     */
+    public PersistentMap<K, V> copy() {
+        return new PersistentMap<>(root, size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return root != null && root.find(key, hash(key), 0) != NOT_FOUND;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Object value = root.find(key, hash(key), 0);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(value, "PersistentMap does not support null values");
+        int hash = hash(key);
+        if (root == null) {
+            root = new BitmapNode(1 << (hash & MASK), 0,
+                    new Object[]{ key, value });
+            size = 1;
+            return null;
+        }
+        Change change = new Change();
+        root = root.put(key, value, hash, 0, change);
+        if (change.oldValue == NOT_FOUND) {
+            ++size;
+            return null;
+        }
+        return (V) change.oldValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Change change = new Change();
+        root = root.remove(key, hash(key), 0, change);
+        if (change.oldValue == NOT_FOUND) {
+            return null;
+        }
+        --size;
+        return (V) change.oldValue;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        if (root == null && m instanceof PersistentMap<?, ?> other) {
+            // adopts the trie of the other map instead of re-inserting
+            // its entries one by one
+            root = other.root;
+            size = other.size;
+        } else {
+            super.putAll(m);
+        }
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Object, Object>) action);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new EntrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof PersistentMap<?, ?> other && other.root == root) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static int hash(Object key) {
+        int h = Objects.hashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Creates a node holding two entries whose keys differ.
+     */
+    private static Node mergeTwo(Object k1, Object v1, int h1,
+                                 Object k2, Object v2, int h2, int shift) {
+        if (shift >= Integer.SIZE) {
+            return new CollisionNode(h1, new Object[]{ k1, v1, k2, v2 });
+        }
+        int i1 = (h1 >>> shift) & MASK;
+        int i2 = (h2 >>> shift) & MASK;
+        if (i1 == i2) {
+            Node child = mergeTwo(k1, v1, h1, k2, v2, h2, shift + BITS);
+            return new BitmapNode(0, 1 << i1, new Object[]{ child });
+        }
+        Object[] content = i1 < i2 ?
+                new Object[]{ k1, v1, k2, v2 } :
+                new Object[]{ k2, v2, k1, v1 };
+        return new BitmapNode((1 << i1) | (1 << i2), 0, content);
+    }
+
+    /**
+     * Records the outcome of an update on the trie.
+     */
+    private static class Change {
+
+        /**
+         * Previous value of the updated key, or {@link #NOT_FOUND}
+         * if the key was absent.
+         */
+        Object oldValue = NOT_FOUND;
+    }
+
+    private abstract static class Node {
+
+        abstract Object find(Object key, int hash, int shift);
+
+        /**
+         * @return the updated node, or this node if nothing changed.
+         */
+        abstract Node put(Object key, Object value, int hash, int shift,
+                          Change change);
+
+        /**
+         * @return the updated node, this node if nothing changed,
+         * or null if the node becomes empty.
+         */
+        abstract Node remove(Object key, int hash, int shift, Change change);
+
+        /**
+         * @return true if this node holds exactly one entry, which
+         * is stored at the first two slots of {@link #content}.
+         */
+        abstract boolean isSingleEntry();
+
+        abstract Object[] content();
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * Trie node which stores up to 32 entries or sub-nodes, indexed by
+     * {@link #BITS} bits of key hash. The content array holds the key-value
+     * pairs first, in the order of {@link #dataMap}, followed by sub-nodes
+     * in the order of {@link #nodeMap}.
+     */
+    private static final class BitmapNode extends Node {
+
+        private final int dataMap;
+
+        private final int nodeMap;
+
+        private final Object[] content;
+
+        BitmapNode(int dataMap, int nodeMap, Object[] content) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.content = content;
+        }
+
+        private int nodeStart() {
+            return 2 * Integer.bitCount(dataMap);
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * index(dataMap, bit);
+                return Objects.equals(content[i], key) ?
+                        content[i + 1] : NOT_FOUND;
+            } else if ((nodeMap & bit) != 0) {
+                Node child = (Node) content[nodeStart() + index(nodeMap, bit)];
+                return child.find(key, hash, shift + BITS);
+            } else {
+                return NOT_FOUND;
+            }
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, Change change) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * index(dataMap, bit);
+                Object k = content[i];
+                Object v = content[i + 1];
+                if (Objects.equals(k, key)) {
+                    change.oldValue = v;
+                    if (Objects.equals(v, value)) {
+                        return this;
+                    }
+                    Object[] newContent = content.clone();
+                    newContent[i + 1] = value;
+                    return new BitmapNode(dataMap, nodeMap, newContent);
+                }
+                // pushes the existing entry and the new one down to a sub-node
+                Node child = mergeTwo(k, v, hash(k), key, value, hash, shift + BITS);
+                int j = nodeStart() - 2 + index(nodeMap, bit);
+                Object[] newContent = new Object[content.length - 1];
+                System.arraycopy(content, 0, newContent, 0, i);
+                System.arraycopy(content, i + 2, newContent, i, j - i);
+                newContent[j] = child;
+                System.arraycopy(content, j + 2, newContent, j + 1,
+                        content.length - j - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap | bit, newContent);
+            } else if ((nodeMap & bit) != 0) {
+                int j = nodeStart() + index(nodeMap, bit);
+                Node child = (Node) content[j];
+                Node newChild = child.put(key, value, hash, shift + BITS, change);
+                if (newChild == child) {
+                    return this;
+                }
+                Object[] newContent = content.clone();
+                newContent[j] = newChild;
+                return new BitmapNode(dataMap, nodeMap, newContent);
+            } else {
+                int i = 2 * index(dataMap, bit);
+                Object[] newContent = new Object[content.length + 2];
+                System.arraycopy(content, 0, newContent, 0, i);
+                newContent[i] = key;
+                newContent[i + 1] = value;
+                System.arraycopy(content, i, newContent, i + 2,
+                        content.length - i);
+                return new BitmapNode(dataMap | bit, nodeMap, newContent);
+            }
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change change) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((dataMap & bit) != 0) {
+                int i = 2 * index(dataMap, bit);
+                if (!Objects.equals(content[i], key)) {
+                    return this;
+                }
+                change.oldValue = content[i + 1];
+                if (content.length == 2) {
+                    return null;
+                }
+                Object[] newContent = new Object[content.length - 2];
+                System.arraycopy(content, 0, newContent, 0, i);
+                System.arraycopy(content, i + 2, newContent, i,
+                        content.length - i - 2);
+                return new BitmapNode(dataMap ^ bit, nodeMap, newContent);
+            } else if ((nodeMap & bit) != 0) {
+                int j = nodeStart() + index(nodeMap, bit);
+                Node child = (Node) content[j];
+                Node newChild = child.remove(key, hash, shift + BITS, change);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild == null) {
+                    if (content.length == 1) {
+                        return null;
+                    }
+                    Object[] newContent = new Object[content.length - 1];
+                    System.arraycopy(content, 0, newContent, 0, j);
+                    System.arraycopy(content, j + 1, newContent, j,
+                            content.length - j - 1);
+                    return new BitmapNode(dataMap, nodeMap ^ bit, newContent);
+                }
+                if (newChild.isSingleEntry()) {
+                    // inlines the remaining entry of the sub-node
+                    Object[] single = newChild.content();
+                    int i = 2 * index(dataMap, bit);
+                    Object[] newContent = new Object[content.length + 1];
+                    System.arraycopy(content, 0, newContent, 0, i);
+                    newContent[i] = single[0];
+                    newContent[i + 1] = single[1];
+                    System.arraycopy(content, i, newContent, i + 2, j - i);
+                    System.arraycopy(content, j + 1, newContent, j + 2,
+                            content.length - j - 1);
+                    return new BitmapNode(dataMap | bit, nodeMap ^ bit, newContent);
+                }
+                Object[] newContent = content.clone();
+                newContent[j] = newChild;
+                return new BitmapNode(dataMap, nodeMap, newContent);
+            } else {
+                return this;
+            }
+        }
+
+        @Override
+        boolean isSingleEntry() {
+            return nodeMap == 0 && content.length == 2;
+        }
+
+        @Override
+        Object[] content() {
+            return content;
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            int nodeStart = nodeStart();
+            for (int i = 0; i < nodeStart; i += 2) {
+                action.accept(content[i], content[i + 1]);
+            }
+            for (int j = nodeStart; j < content.length; ++j) {
+                ((Node) content[j]).forEach(action);
+            }
+        }
+    }
+
+    /**
+     * Node holding the entries whose keys have the same full hash.
+     */
+    private static final class CollisionNode extends Node {
+
+        private final int hash;
+
+        private final Object[] content;
+
+        CollisionNode(int hash, Object[] content) {
+            this.hash = hash;
+            this.content = content;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < content.length; i += 2) {
+                if (Objects.equals(content[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(Object key, int hash, int shift) {
+            int i = this.hash == hash ? indexOf(key) : -1;
+            return i >= 0 ? content[i + 1] : NOT_FOUND;
+        }
+
+        @Override
+        Node put(Object key, Object value, int hash, int shift, Change change) {
+            int i = indexOf(key);
+            Object[] newContent;
+            if (i >= 0) {
+                change.oldValue = content[i + 1];
+                if (Objects.equals(content[i + 1], value)) {
+                    return this;
+                }
+                newContent = content.clone();
+                newContent[i + 1] = value;
+            } else {
+                newContent = new Object[content.length + 2];
+                System.arraycopy(content, 0, newContent, 0, content.length);
+                newContent[content.length] = key;
+                newContent[content.length + 1] = value;
+            }
+            return new CollisionNode(this.hash, newContent);
+        }
+
+        @Override
+        Node remove(Object key, int hash, int shift, Change change) {
+            int i = this.hash == hash ? indexOf(key) : -1;
+            if (i < 0) {
+                return this;
+            }
+            change.oldValue = content[i + 1];
+            if (content.length == 2) {
+                return null;
+            }
+            Object[] newContent = new Object[content.length - 2];
+            System.arraycopy(content, 0, newContent, 0, i);
+            System.arraycopy(content, i + 2, newContent, i,
+                    content.length - i - 2);
+            return new CollisionNode(this.hash, newContent);
+        }
+
+        @Override
+        boolean isSingleEntry() {
+            return content.length == 2;
+        }
+
+        @Override
+        Object[] content() {
+            return content;
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < content.length; i += 2) {
+                action.accept(content[i], content[i + 1]);
+            }
+        }
+    }
+
+    /**
+     * Entry set view of this map. Its iterator traverses a snapshot of
+     * the trie, so that removing entries during iteration is safe.
+     */
+    private class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Entry<?, ?> e) {
+                Object value = root == null ? NOT_FOUND :
+                        root.find(e.getKey(), hash(e.getKey()), 0);
+                return value != NOT_FOUND && value.equals(e.getValue());
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            List<Entry<K, V>> entries = new ArrayList<>(size);
+            PersistentMap.this.forEach((k, v) ->
+                    entries.add(new SimpleImmutableEntry<>(k, v)));
+            Iterator<Entry<K, V>> it = entries.iterator();
+            return new Iterator<>() {
+
+                private Entry<K, V> last;
+
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    return last = it.next();
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    PersistentMap.this.remove(last.getKey());
+                    last = null;
+                }
+            };
+        }
+    }
+}
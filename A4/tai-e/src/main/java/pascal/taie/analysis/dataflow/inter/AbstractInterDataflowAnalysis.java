@@ -25,14 +25,19 @@ package pascal.taie.analysis.dataflow.inter;
 import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGBuilder;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
+import pascal.taie.analysis.graph.icfg.LazyICFGBuilder;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 
 /**
  * Provides common functionalities for {@link InterDataflowAnalysis} implementations.
@@ -49,8 +54,52 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     protected InterSolver<Method, Node, Fact> solver;
 
+    /**
+     * Whether to collect {@link SolverMetrics} of the solver.
+     */
+    private final boolean collectMetrics;
+
+    /**
+     * Whether to solve the analysis by {@link SummarySolver}, which
+     * reuses per-context method summaries instead of merging the facts
+     * of all call sites of a method.
+     */
+    private final boolean summaryBased;
+
+    /**
+     * Number of threads to solve the analysis, 1 for {@link InterSolver},
+     * a larger number for {@link ParallelInterSolver} with that many
+     * workers, and 0 for {@link ParallelInterSolver} on the common pool.
+     */
+    private final int parallelism;
+
     public AbstractInterDataflowAnalysis(AnalysisConfig config) {
         super(config);
+        collectMetrics = getOptions().getBooleanOrDefault("metrics", false);
+        summaryBased = getOptions().getBooleanOrDefault("summary", false);
+        parallelism = getParallelism();
+    }
+
+    /**
+     * @return the parallelism specified by option {@code parallelism},
+     * or 1 if the option is absent.
+     */
+    private int getParallelism() {
+        Object value = getOptions().get("parallelism");
+        if (value == null) {
+            return 1;
+        }
+        int parallelism;
+        try {
+            parallelism = Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            parallelism = -1;
+        }
+        if (parallelism < 0) {
+            throw new ConfigException("Invalid parallelism option of " +
+                    getId() + ": " + value);
+        }
+        return parallelism;
     }
 
     /**
@@ -119,11 +168,43 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
 
     @Override
     public Object analyze() {
-        icfg = World.get().getResult(ICFGBuilder.ID);
+        String icfgId = getOptions().getString("icfg");
+        icfg = World.get().getResult(icfgId != null ? icfgId : ICFGBuilder.ID);
+        if (icfg instanceof LazyICFG && (summaryBased || parallelism != 1)) {
+            throw new ConfigException(LazyICFGBuilder.ID +
+                    " is only supported by the sequential solver");
+        }
         initialize();
-        solver = new InterSolver<>(this, icfg);
-        DataflowResult<Node, Fact> result = solver.solve();
+        SolverMetrics metrics = collectMetrics ? new SolverMetrics(getId()) : null;
+        DataflowResult<Node, Fact> result;
+        if (summaryBased) {
+            result = new SummarySolver<>(this, icfg,
+                    SummarySolver.DEFAULT_MAX_CONTEXTS, metrics).solve();
+        } else if (parallelism != 1) {
+            result = new ParallelInterSolver<>(this, icfg,
+                    parallelism, metrics).solve();
+        } else {
+            solver = new InterSolver<>(this, icfg, metrics);
+            result = solver.solve();
+        }
         finish();
+        if (metrics != null) {
+            storeMetrics(metrics);
+        }
         return result;
     }
+
+    /**
+     * Stores the metrics in {@link World}, and the metrics of each method
+     * in the {@link pascal.taie.ir.IR} of the method.
+     */
+    private void storeMetrics(SolverMetrics metrics) {
+        String key = SolverMetrics.getKey(getId());
+        World.get().storeResult(key, metrics);
+        for (SolverMetrics.MethodMetrics m : metrics.getAllMethodMetrics()) {
+            if (m.getMethod() instanceof JMethod method) {
+                method.getIR().storeResult(key, m);
+            }
+        }
+    }
 }
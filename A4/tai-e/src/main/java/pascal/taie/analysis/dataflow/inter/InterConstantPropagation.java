@@ -23,7 +23,10 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFactCodec;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.MappedDataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
@@ -31,6 +34,7 @@ import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.LValue;
 import pascal.taie.ir.exp.Var;
@@ -48,11 +52,62 @@ public class InterConstantPropagation extends
 
     public static final String ID = "inter-constprop";
 
+    /**
+     * Default maximum number of facts cached on the heap when the facts
+     * are stored off the heap.
+     */
+    private static final int DEFAULT_OFF_HEAP_CACHE_SIZE = 1 << 14;
+
     private final ConstantPropagation cp;
 
+    /**
+     * Whether to store the facts in a {@link MappedDataflowResult}.
+     */
+    private final boolean offHeap;
+
+    /**
+     * Maximum number of facts cached on the heap when {@link #offHeap} is true.
+     */
+    private final int offHeapCacheSize;
+
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
-        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
+        cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID,
+                "persistent", getOptions().getBooleanOrDefault("persistent", false)));
+        offHeap = getOptions().getBooleanOrDefault("off-heap", false);
+        offHeapCacheSize = getOffHeapCacheSize();
+    }
+
+    /**
+     * @return the cache size specified by option {@code off-heap-cache-size},
+     * or {@link #DEFAULT_OFF_HEAP_CACHE_SIZE} if the option is absent.
+     */
+    private int getOffHeapCacheSize() {
+        Object value = getOptions().get("off-heap-cache-size");
+        if (value == null) {
+            return DEFAULT_OFF_HEAP_CACHE_SIZE;
+        }
+        int size;
+        try {
+            size = Integer.parseInt(value.toString());
+        } catch (NumberFormatException e) {
+            size = 0;
+        }
+        if (size <= 0) {
+            throw new ConfigException("Invalid off-heap-cache-size option of " +
+                    getId() + ": " + value);
+        }
+        return size;
+    }
+
+    @Override
+    public DataflowResult<Stmt, CPFact> newResult() {
+        if (offHeap) {
+            return new MappedDataflowResult<>(new CPFactCodec<>(
+                    stmt -> icfg.getContainingMethodOf(stmt).getIR(),
+                    cp::newInitialFact), offHeapCacheSize);
+        }
+        return super.newResult();
     }
 
     @Override
@@ -79,11 +134,7 @@ public class InterConstantPropagation extends
     @Override
     protected boolean transferCallNode(Stmt stmt, CPFact in, CPFact out) {
         // TODO - finish me
-        boolean change = false;
-        for (Var var : in.keySet()) {
-            change |= out.update(var, in.get(var));
-        }
-        return change;
+        return out.copyFrom(in);
     }
 
     @Override
@@ -112,7 +163,7 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferCallEdge(CallEdge<Stmt> edge, CPFact callSiteOut) {
         // TODO - finish me
-        CPFact newFact = new CPFact();
+        CPFact newFact = cp.newInitialFact();
 
         if(edge.getSource() instanceof Invoke invoke){
             List<Var> params2Fill = edge.getCallee().getIR().getParams();
@@ -132,7 +183,7 @@ public class InterConstantPropagation extends
     @Override
     protected CPFact transferReturnEdge(ReturnEdge<Stmt> edge, CPFact returnOut) {
         // TODO - finish me
-        CPFact newFact = new CPFact();
+        CPFact newFact = cp.newInitialFact();
         LValue callSiteDef = edge.getCallSite().getDef().orElse(null);
 
         if(callSiteDef instanceof Var var){
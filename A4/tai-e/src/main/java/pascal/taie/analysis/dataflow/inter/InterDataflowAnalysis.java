@@ -22,6 +22,7 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 
 /**
@@ -71,4 +72,12 @@ public interface InterDataflowAnalysis<Node, Fact> {
      * @return the result of edge transfer function.
      */
     Fact transferEdge(ICFGEdge<Node> edge, Fact out);
+
+    /**
+     * @return new data-flow result to hold the facts computed by the solver.
+     * By default, the facts are held in an on-heap {@link DataflowResult}.
+     */
+    default DataflowResult<Node, Fact> newResult() {
+        return new DataflowResult<>();
+    }
 }
@@ -23,8 +23,10 @@
 package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
 import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.LazyICFG;
 import pascal.taie.util.collection.SetQueue;
 
 import java.util.*;
@@ -43,23 +45,83 @@ class InterSolver<Method, Node, Fact> {
 
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private InterWorkList<Method, Node> workList;
+
+    /**
+     * The ICFG if its methods are built on demand, otherwise {@code null}.
+     * <p>
+     * On a lazy ICFG, only the entries of the methods are added to the
+     * work-list when the methods are built, and the other nodes are added
+     * when their predecessors are visited for the first time or change
+     * their OUT facts. The callees of a call site are built when the call
+     * site is visited for the first time, thus the methods whose call
+     * sites are never reached are never built, and their nodes are given
+     * the initial facts in the result.
+     */
+    private final LazyICFG<Method, Node> lazyICFG;
+
+    /**
+     * Nodes that have been visited on the lazy ICFG.
+     */
+    private Set<Node> visited;
+
+    /**
+     * Logical time of the solver, which is increased whenever
+     * the OUT fact of a node changes.
+     */
+    private int time;
+
+    /**
+     * Time when the OUT fact of each node changed for the last time,
+     * indexed by the ranks of the nodes in {@link #workList}.
+     */
+    private int[] changeTimes;
+
+    /**
+     * Time when each node met the facts of its in-edges for the last time,
+     * indexed by the ranks of the nodes in {@link #workList}.
+     * As IN facts only grow during solving, the transferred fact of
+     * an in-edge needs neither to be computed nor to be met again
+     * until the OUT fact of its source changes after this time.
+     */
+    private int[] meetTimes;
+
+    /**
+     * Metrics of this solver, or {@code null} if metrics are disabled.
+     */
+    private final SolverMetrics metrics;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
+        this(analysis, icfg, null);
+    }
+
+    InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                ICFG<Method, Node> icfg, SolverMetrics metrics) {
         this.analysis = analysis;
         this.icfg = icfg;
+        this.metrics = metrics;
+        this.lazyICFG = icfg instanceof LazyICFG<Method, Node> lazy ? lazy : null;
     }
 
     DataflowResult<Node, Fact> solve() {
-        result = new DataflowResult<>();
+        long start = metrics != null ? System.nanoTime() : 0;
+        result = analysis.newResult();
         initialize();
         doSolve();
-        return result;
+        if (metrics != null) {
+            metrics.setTime(System.nanoTime() - start);
+        }
+        return lazyICFG != null ? new LazyResult<>(result, analysis) : result;
     }
 
     private void initialize() {
-        workList = new LinkedList<>();
+        workList = new InterWorkList<>(icfg);
+        time = 0;
+        changeTimes = new int[workList.getNumberOfNodes()];
+        meetTimes = new int[workList.getNumberOfNodes()];
+        Arrays.fill(meetTimes, -1);
+        visited = new HashSet<>();
 
         // TODO - finish me
         Set<Node> entries = icfg.entryMethods().map(icfg::getEntryOf)
@@ -78,23 +140,139 @@ class InterSolver<Method, Node, Fact> {
 
     private void doSolve() {
         // TODO - finish me
-        for (Node node : icfg) {
-            workList.add(node);
+        if (lazyICFG != null) {
+            icfg.entryMethods().map(icfg::getEntryOf).forEach(workList::add);
+        } else {
+            for (Node node : icfg) {
+                workList.add(node);
+            }
         }
 
         while (!workList.isEmpty()) {
+            if (metrics != null) {
+                metrics.recordWorkListSize(workList.size());
+            }
             Node node = workList.poll();
+            long start = metrics != null ? System.nanoTime() : 0;
             Fact in = result.getInFact(node);
             Fact out = result.getOutFact(node);
 
+            int meets = 0;
+            int rank = workList.getRank(node);
+            int lastMeet = meetTimes[rank];
+            meetTimes[rank] = time;
             for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
-                analysis.meetInto(analysis.transferEdge(inEdge, result.getOutFact(inEdge.getSource())), in);
+                Node source = inEdge.getSource();
+                if (changeTimes[workList.getRank(source)] > lastMeet) {
+                    analysis.meetInto(analysis.transferEdge(inEdge, result.getOutFact(source)), in);
+                    ++meets;
+                }
+            }
+            boolean changed = analysis.transferNode(node, in, out);
+            // set the facts back, as the result may not keep
+            // the fact objects, e.g., MappedDataflowResult
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+            boolean firstVisit = false;
+            if (lazyICFG != null) {
+                firstVisit = visited.add(node);
+                if (firstVisit && icfg.isCallSite(node)) {
+                    buildCallees(node);
+                }
+            }
+            if (changed) { // 有变化
+                changeTimes[rank] = ++time;
             }
-            if (analysis.transferNode(node, in, out)) { // 有变化
+            if (changed || firstVisit) {
                 for (Node success : icfg.getSuccsOf(node)) {
-                    workList.offer(success);
+                    workList.add(success);
                 }
             }
+            if (metrics != null) {
+                metrics.recordVisit(icfg.getContainingMethodOf(node),
+                        meets, changed, SolverMetrics.sizeOf(out),
+                        System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Builds the callees of given call site that are absent from the lazy
+     * ICFG, initializes the facts of their nodes, and adds their entries
+     * to the work-list.
+     */
+    private void buildCallees(Node callSite) {
+        for (Method callee : icfg.getCalleesOf(callSite)) {
+            Collection<Node> nodes = lazyICFG.build(callee);
+            for (Node node : nodes) {
+                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact());
+            }
+            if (!nodes.isEmpty()) {
+                workList.addMethod(icfg, callee, nodes);
+                growTimes();
+                // the edges from the new nodes are to be met by their
+                // targets, which may have met their other in-edges
+                ++time;
+                for (Node node : nodes) {
+                    changeTimes[workList.getRank(node)] = time;
+                }
+                workList.add(icfg.getEntryOf(callee));
+            }
+        }
+    }
+
+    /**
+     * Grows {@link #changeTimes} and {@link #meetTimes} to cover
+     * the nodes newly ranked in the work-list.
+     */
+    private void growTimes() {
+        int size = workList.getNumberOfNodes();
+        if (size > changeTimes.length) {
+            int capacity = Math.max(size, changeTimes.length * 2);
+            int oldLength = meetTimes.length;
+            changeTimes = Arrays.copyOf(changeTimes, capacity);
+            meetTimes = Arrays.copyOf(meetTimes, capacity);
+            Arrays.fill(meetTimes, oldLength, capacity, -1);
+        }
+    }
+
+    /**
+     * Result of solving on a lazy ICFG, which gives the initial facts
+     * to the nodes of the methods that have never been built.
+     */
+    private static class LazyResult<Node, Fact> extends DataflowResult<Node, Fact> {
+
+        private final DataflowResult<Node, Fact> facts;
+
+        private final InterDataflowAnalysis<Node, Fact> analysis;
+
+        private LazyResult(DataflowResult<Node, Fact> facts,
+                           InterDataflowAnalysis<Node, Fact> analysis) {
+            this.facts = facts;
+            this.analysis = analysis;
+        }
+
+        @Override
+        public Fact getInFact(Node node) {
+            Fact fact = facts.getInFact(node);
+            return fact != null ? fact : analysis.newInitialFact();
+        }
+
+        @Override
+        public void setInFact(Node node, Fact fact) {
+            facts.setInFact(node, fact);
+        }
+
+        @Override
+        public Fact getOutFact(Node node) {
+            Fact fact = facts.getOutFact(node);
+            return fact != null ? fact : analysis.newInitialFact();
+        }
+
+        @Override
+        public void setOutFact(Node node, Fact fact) {
+            facts.setOutFact(node, fact);
         }
     }
 }
@@ -0,0 +1,280 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.SetQueue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Solver for inter-procedural data-flow analysis that solves the methods
+ * in parallel.
+ * <p>
+ * The nodes of the ICFG are partitioned by their containing methods.
+ * The solver runs in rounds: in each round, every partition with pending
+ * work solves its nodes to a local fixed point in a separate task, where
+ * the facts flowing along {@link CallEdge}s and {@link ReturnEdge}s, i.e.,
+ * from other partitions, are read from the facts published in the
+ * previous round. At the end of a round, each partition publishes the
+ * changed facts of the sources of its outgoing call/return edges, and
+ * adds the targets of these edges to the work-lists of their partitions.
+ * The solver terminates when no partition has pending work, i.e., at
+ * the global fixed point.
+ * <p>
+ * The published facts only change between rounds, and the partitions
+ * publish in a fixed order, so the rounds are deterministic, and so is
+ * the result, regardless of the parallelism.
+ * <p>
+ * The facts are kept by the partitions during solving, and are stored
+ * in the result of {@link InterDataflowAnalysis#newResult()} afterwards.
+ */
+class ParallelInterSolver<Method, Node, Fact> {
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    /**
+     * Number of worker threads, or 0 to use the common pool.
+     */
+    private final int parallelism;
+
+    /**
+     * Metrics of this solver, or {@code null} if metrics are disabled.
+     */
+    private final SolverMetrics metrics;
+
+    private final Map<Method, Partition> partitions = new LinkedHashMap<>();
+
+    /**
+     * OUT facts of the sources of call/return edges, as of the last round.
+     * Only modified between rounds.
+     */
+    private final Map<Node, Fact> publishedFacts = new HashMap<>();
+
+    ParallelInterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                        ICFG<Method, Node> icfg, int parallelism,
+                        SolverMetrics metrics) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.parallelism = parallelism;
+        this.metrics = metrics;
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        long start = metrics != null ? System.nanoTime() : 0;
+        initialize();
+        ForkJoinPool pool = parallelism == 0 ?
+                ForkJoinPool.commonPool() : new ForkJoinPool(parallelism);
+        try {
+            List<Partition> active;
+            while (!(active = getActivePartitions()).isEmpty()) {
+                if (metrics != null) {
+                    metrics.recordWorkListSize(active.stream()
+                            .mapToInt(p -> p.workList.size()).sum());
+                }
+                List<Partition> round = active;
+                pool.submit(() -> round.parallelStream()
+                        .forEach(Partition::solve)).join();
+                // publish the facts in the order of partitions
+                round.forEach(Partition::publish);
+            }
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+        DataflowResult<Node, Fact> result = analysis.newResult();
+        partitions.values().forEach(p -> p.storeFacts(result));
+        if (metrics != null) {
+            metrics.setTime(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private void initialize() {
+        Set<Node> entries = icfg.entryMethods().map(icfg::getEntryOf)
+                .collect(Collectors.toSet());
+        for (Node node : icfg) {
+            Partition partition = partitions.computeIfAbsent(
+                    icfg.getContainingMethodOf(node), Partition::new);
+            partition.addNode(node, entries.contains(node));
+        }
+        for (Partition partition : partitions.values()) {
+            for (Node node : partition.nodes) {
+                if (isExported(node)) {
+                    publishedFacts.put(node, copy(partition.outFacts.get(node)));
+                }
+            }
+        }
+    }
+
+    private List<Partition> getActivePartitions() {
+        return partitions.values()
+                .stream()
+                .filter(p -> !p.workList.isEmpty())
+                .toList();
+    }
+
+    /**
+     * @return {@code true} if given edge crosses partitions.
+     */
+    private static boolean isCrossEdge(ICFGEdge<?> edge) {
+        // call/return edges of recursive calls also go through
+        // the published facts, which keeps the treatment uniform
+        return edge instanceof CallEdge || edge instanceof ReturnEdge;
+    }
+
+    /**
+     * @return {@code true} if the OUT fact of given node flows
+     * to other partitions.
+     */
+    private boolean isExported(Node node) {
+        return icfg.getOutEdgesOf(node)
+                .stream()
+                .anyMatch(ParallelInterSolver::isCrossEdge);
+    }
+
+    private Fact copy(Fact fact) {
+        Fact copy = analysis.newInitialFact();
+        analysis.meetInto(fact, copy);
+        return copy;
+    }
+
+    /**
+     * Nodes of a method, and the facts of them.
+     */
+    private class Partition {
+
+        private final Method method;
+
+        private final List<Node> nodes = new ArrayList<>();
+
+        private final Map<Node, Fact> inFacts = new HashMap<>();
+
+        private final Map<Node, Fact> outFacts = new HashMap<>();
+
+        private final SetQueue<Node> workList = new SetQueue<>();
+
+        /**
+         * Exported nodes whose OUT facts changed in the current round.
+         */
+        private final Set<Node> changedExports = new LinkedHashSet<>();
+
+        private final List<Visit> visits = new ArrayList<>();
+
+        private Partition(Method method) {
+            this.method = method;
+        }
+
+        private void addNode(Node node, boolean isEntry) {
+            nodes.add(node);
+            inFacts.put(node, isEntry ?
+                    analysis.newBoundaryFact(node) : analysis.newInitialFact());
+            outFacts.put(node, isEntry ?
+                    analysis.newBoundaryFact(node) : analysis.newInitialFact());
+            workList.add(node);
+        }
+
+        /**
+         * Solves the nodes of this partition to a local fixed point.
+         */
+        private void solve() {
+            while (!workList.isEmpty()) {
+                Node node = workList.poll();
+                long start = metrics != null ? System.nanoTime() : 0;
+                Fact in = inFacts.get(node);
+                Fact out = outFacts.get(node);
+                Set<ICFGEdge<Node>> inEdges = icfg.getInEdgesOf(node);
+                for (ICFGEdge<Node> inEdge : inEdges) {
+                    Node source = inEdge.getSource();
+                    Fact predOut = isCrossEdge(inEdge) ?
+                            publishedFacts.get(source) : outFacts.get(source);
+                    analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
+                }
+                boolean changed = analysis.transferNode(node, in, out);
+                if (changed) {
+                    for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+                        if (isCrossEdge(outEdge)) {
+                            changedExports.add(node);
+                        } else {
+                            workList.add(outEdge.getTarget());
+                        }
+                    }
+                }
+                if (metrics != null) {
+                    visits.add(new Visit(inEdges.size(), changed,
+                            SolverMetrics.sizeOf(out), System.nanoTime() - start));
+                }
+            }
+        }
+
+        /**
+         * Publishes the changed OUT facts of the exported nodes,
+         * and adds the affected nodes to the work-lists of their
+         * partitions. Must not run in parallel with other partitions.
+         */
+        private void publish() {
+            for (Node node : changedExports) {
+                publishedFacts.put(node, copy(outFacts.get(node)));
+                for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+                    if (isCrossEdge(outEdge)) {
+                        Node target = outEdge.getTarget();
+                        partitions.get(icfg.getContainingMethodOf(target))
+                                .workList.add(target);
+                    }
+                }
+            }
+            changedExports.clear();
+            if (metrics != null) {
+                visits.forEach(v -> metrics.recordVisit(method, v.meets(),
+                        v.changed(), v.factSize(), v.time()));
+                visits.clear();
+            }
+        }
+
+        private void storeFacts(DataflowResult<Node, Fact> result) {
+            for (Node node : nodes) {
+                result.setInFact(node, inFacts.get(node));
+                result.setOutFact(node, outFacts.get(node));
+            }
+        }
+    }
+
+    private record Visit(int meets, boolean changed, int factSize, long time) {
+    }
+}
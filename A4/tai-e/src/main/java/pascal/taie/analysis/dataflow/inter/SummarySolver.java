@@ -0,0 +1,319 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Pair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Summary-based solver for inter-procedural data-flow analysis,
+ * which follows the functional approach to inter-procedural analysis.
+ * <p>
+ * Instead of propagating the facts of all calling contexts of a method
+ * through a single copy of its body, this solver analyzes each method
+ * once per distinct entry fact (a {@link Context}), and the facts
+ * at the exit of a context serve as the summary of the method for
+ * that entry fact. A call site with an entry fact that has been seen
+ * before reuses the summary without analyzing the callee again, and
+ * a return site receives the summary of the context bound to its
+ * call site only, which is more precise than the facts merged from
+ * all call sites.
+ * <p>
+ * To guarantee termination on lattices with infinitely many facts
+ * (e.g., constants), each method has at most {@link #maxContexts}
+ * contexts; the entry facts beyond that are met into a single merged
+ * context of the method, which is analyzed as by {@link InterSolver}.
+ * <p>
+ * The facts of each node in the result are the meet of its facts
+ * in all contexts. This solver only supports forward analyses.
+ */
+class SummarySolver<Method, Node, Fact> {
+
+    /**
+     * Default maximum number of contexts of each method.
+     */
+    static final int DEFAULT_MAX_CONTEXTS = 16;
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final int maxContexts;
+
+    /**
+     * Metrics of this solver, or {@code null} if metrics are disabled.
+     */
+    private final SolverMetrics metrics;
+
+    /**
+     * Contexts of each method, indexed by their entry facts.
+     */
+    private final Map<Method, Map<Fact, Context>> contexts = new LinkedHashMap<>();
+
+    private final Map<Method, Context> mergedContexts = new LinkedHashMap<>();
+
+    private final Queue<Pair<Context, Node>> workList = new ArrayDeque<>();
+
+    private final Set<Pair<Context, Node>> inWorkList = new HashSet<>();
+
+    SummarySolver(InterDataflowAnalysis<Node, Fact> analysis,
+                  ICFG<Method, Node> icfg, int maxContexts,
+                  SolverMetrics metrics) {
+        if (!analysis.isForward()) {
+            throw new UnsupportedOperationException(
+                    "SummarySolver does not support backward analysis");
+        }
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.maxContexts = maxContexts;
+        this.metrics = metrics;
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        long start = metrics != null ? System.nanoTime() : 0;
+        icfg.entryMethods().forEach(method -> {
+            Node entry = icfg.getEntryOf(method);
+            getContext(method, analysis.newBoundaryFact(entry));
+        });
+        while (!workList.isEmpty()) {
+            if (metrics != null) {
+                metrics.recordWorkListSize(workList.size());
+            }
+            Pair<Context, Node> item = workList.poll();
+            inWorkList.remove(item);
+            process(item.first(), item.second());
+        }
+        DataflowResult<Node, Fact> result = collectResult();
+        if (metrics != null) {
+            metrics.setTime(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * Analyzes given node in given context.
+     */
+    private void process(Context context, Node node) {
+        long start = metrics != null ? System.nanoTime() : 0;
+        Fact in = context.inFacts.computeIfAbsent(node,
+                n -> analysis.newInitialFact());
+        int meets = 0;
+        if (node.equals(icfg.getEntryOf(context.method))) {
+            analysis.meetInto(context.entryFact, in);
+            ++meets;
+        }
+        for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
+            Fact predOut;
+            if (inEdge instanceof CallEdge) {
+                // the entry fact of the context has been met
+                continue;
+            } else if (inEdge instanceof ReturnEdge<Node> returnEdge) {
+                // receives the summary of the context bound to the call site
+                Context callee = context.getCallee(returnEdge.getCallSite(),
+                        icfg.getContainingMethodOf(returnEdge.getSource()));
+                predOut = callee == null ? null :
+                        callee.outFacts.get(returnEdge.getSource());
+            } else {
+                predOut = context.outFacts.get(inEdge.getSource());
+            }
+            if (predOut != null) {
+                analysis.meetInto(analysis.transferEdge(inEdge, predOut), in);
+                ++meets;
+            }
+        }
+        Fact out = context.outFacts.get(node);
+        boolean changed = out == null;
+        if (changed) {
+            out = analysis.newInitialFact();
+            context.outFacts.put(node, out);
+        }
+        changed |= analysis.transferNode(node, in, out);
+        if (changed) {
+            propagate(context, node, out);
+        }
+        if (metrics != null) {
+            metrics.recordVisit(context.method, meets, changed,
+                    SolverMetrics.sizeOf(out), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Propagates the changed OUT fact of given node in given context.
+     */
+    private void propagate(Context context, Node node, Fact out) {
+        if (node.equals(icfg.getExitOf(context.method))) {
+            // the summary of the context changes, so the return sites
+            // of the call sites bound to the context are affected
+            for (Pair<Context, Node> caller : context.callers) {
+                addReturnSites(caller.first(), caller.second());
+            }
+        }
+        for (ICFGEdge<Node> outEdge : icfg.getOutEdgesOf(node)) {
+            if (outEdge instanceof CallEdge<Node> callEdge) {
+                Method method = icfg.getContainingMethodOf(callEdge.getTarget());
+                Context callee = getContext(method,
+                        analysis.transferEdge(callEdge, out));
+                context.bindCallee(node, method, callee);
+                callee.callers.add(new Pair<>(context, node));
+                if (callee.outFacts.containsKey(icfg.getExitOf(method))) {
+                    // the summary of the callee exists, which can be
+                    // reused by the return sites
+                    addReturnSites(context, node);
+                }
+            } else if (!(outEdge instanceof ReturnEdge)) {
+                add(context, outEdge.getTarget());
+            }
+        }
+    }
+
+    /**
+     * @return the context of given method for given entry fact.
+     * If the context is new or merged, its entry node is added
+     * to the work-list.
+     */
+    private Context getContext(Method method, Fact entryFact) {
+        Map<Fact, Context> methodContexts = contexts.computeIfAbsent(
+                method, m -> new LinkedHashMap<>());
+        Context context = methodContexts.get(entryFact);
+        if (context == null) {
+            if (methodContexts.size() < maxContexts) {
+                context = new Context(method, entryFact);
+                methodContexts.put(entryFact, context);
+            } else {
+                context = mergedContexts.computeIfAbsent(method,
+                        m -> new Context(m, analysis.newInitialFact()));
+                analysis.meetInto(entryFact, context.entryFact);
+            }
+            add(context, icfg.getEntryOf(method));
+        }
+        return context;
+    }
+
+    private void addReturnSites(Context context, Node callSite) {
+        for (Node returnSite : icfg.getReturnSitesOf(callSite)) {
+            add(context, returnSite);
+        }
+    }
+
+    private void add(Context context, Node node) {
+        Pair<Context, Node> item = new Pair<>(context, node);
+        if (inWorkList.add(item)) {
+            workList.add(item);
+        }
+    }
+
+    /**
+     * Meets the facts of each node in all contexts into the result.
+     */
+    private DataflowResult<Node, Fact> collectResult() {
+        Map<Method, List<Context>> methodContexts = new HashMap<>();
+        contexts.forEach((method, cs) ->
+                methodContexts.put(method, new ArrayList<>(cs.values())));
+        mergedContexts.forEach((method, c) ->
+                methodContexts.computeIfAbsent(method, m -> new ArrayList<>())
+                        .add(c));
+        DataflowResult<Node, Fact> result = analysis.newResult();
+        for (Node node : icfg) {
+            Fact in = analysis.newInitialFact();
+            Fact out = analysis.newInitialFact();
+            for (Context context : methodContexts.getOrDefault(
+                    icfg.getContainingMethodOf(node), List.of())) {
+                Fact contextIn = context.inFacts.get(node);
+                if (contextIn != null) {
+                    analysis.meetInto(contextIn, in);
+                }
+                Fact contextOut = context.outFacts.get(node);
+                if (contextOut != null) {
+                    analysis.meetInto(contextOut, out);
+                }
+            }
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+        }
+        return result;
+    }
+
+    /**
+     * A method analyzed under an entry fact.
+     */
+    private class Context {
+
+        private final Method method;
+
+        /**
+         * Entry fact of this context. Only the entry fact of
+         * a merged context is modified, i.e., met with other facts.
+         */
+        private final Fact entryFact;
+
+        private final Map<Node, Fact> inFacts = new HashMap<>();
+
+        private final Map<Node, Fact> outFacts = new HashMap<>();
+
+        /**
+         * Call sites (and their contexts) bound to this context.
+         */
+        private final Set<Pair<Context, Node>> callers = new LinkedHashSet<>();
+
+        /**
+         * Contexts of the callees bound to the call sites in this context.
+         */
+        private final Map<Node, Map<Method, Context>> callees = new HashMap<>();
+
+        private Context(Method method, Fact entryFact) {
+            this.method = method;
+            this.entryFact = entryFact;
+        }
+
+        private Context getCallee(Node callSite, Method method) {
+            Map<Method, Context> contexts = callees.get(callSite);
+            return contexts == null ? null : contexts.get(method);
+        }
+
+        private void bindCallee(Node callSite, Method method, Context callee) {
+            callees.computeIfAbsent(callSite, n -> new HashMap<>())
+                    .put(method, callee);
+        }
+
+        @Override
+        public String toString() {
+            return method + "@" + entryFact;
+        }
+    }
+}
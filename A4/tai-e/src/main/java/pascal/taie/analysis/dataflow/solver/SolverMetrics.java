@@ -0,0 +1,230 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.solver;
+
+import pascal.taie.analysis.dataflow.fact.MapFact;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Metrics collected by a data-flow solver for an analysis, which
+ * break down the work of the solver by methods.
+ * <p>
+ * The solvers collect the metrics only when it is enabled
+ * (by option {@code metrics} of the analysis); otherwise, they do not
+ * create this object, and thus the cost of instrumentation is just
+ * a {@code null} check per node visit.
+ */
+public class SolverMetrics {
+
+    private final String analysisId;
+
+    private final Map<Object, MethodMetrics> methodMetrics = new LinkedHashMap<>();
+
+    private int maxWorkListSize;
+
+    private long time;
+
+    public SolverMetrics(String analysisId) {
+        this.analysisId = analysisId;
+    }
+
+    /**
+     * @return the key of the metrics of given analysis in result holders.
+     */
+    public static String getKey(String analysisId) {
+        return analysisId + ".metrics";
+    }
+
+    /**
+     * @return the number of elements in given fact, or 0
+     * if its size is unknown.
+     */
+    public static int sizeOf(Object fact) {
+        if (fact instanceof MapFact<?, ?> mapFact) {
+            return mapFact.keySet().size();
+        } else if (fact instanceof Collection<?> c) {
+            return c.size();
+        } else {
+            return 0;
+        }
+    }
+
+    public String getAnalysisId() {
+        return analysisId;
+    }
+
+    /**
+     * Records a visit of a node of given method.
+     *
+     * @param meets    number of {@code meetInto} calls in the visit
+     * @param changed  whether the visit changed the OUT fact of the node
+     * @param factSize size of the OUT fact of the node
+     * @param time     time of the visit in nanoseconds
+     */
+    public void recordVisit(Object method, int meets,
+                            boolean changed, int factSize, long time) {
+        MethodMetrics metrics = methodMetrics.computeIfAbsent(
+                method, MethodMetrics::new);
+        ++metrics.nodeVisits;
+        ++metrics.transferNodeCalls;
+        metrics.meetIntoCalls += meets;
+        if (changed) {
+            ++metrics.changedFacts;
+        }
+        metrics.maxFactSize = Math.max(metrics.maxFactSize, factSize);
+        metrics.time += time;
+    }
+
+    /**
+     * Records current size of the work-list.
+     */
+    public void recordWorkListSize(int size) {
+        maxWorkListSize = Math.max(maxWorkListSize, size);
+    }
+
+    /**
+     * Sets the wall time of the solver in nanoseconds.
+     */
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public int getMaxWorkListSize() {
+        return maxWorkListSize;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return the metrics of given method, or {@code null}
+     * if the solver never visited the method.
+     */
+    public MethodMetrics getMethodMetrics(Object method) {
+        return methodMetrics.get(method);
+    }
+
+    public Collection<MethodMetrics> getAllMethodMetrics() {
+        return Collections.unmodifiableCollection(methodMetrics.values());
+    }
+
+    /**
+     * @return the metrics as a map from names to values, which can be
+     * serialized to JSON directly.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("analysis", analysisId);
+        map.put("time-ms", time / 1_000_000.0);
+        map.put("worklist-high-water", maxWorkListSize);
+        List<Map<String, Object>> methods = new ArrayList<>();
+        methodMetrics.values().forEach(m -> methods.add(m.toMap()));
+        map.put("methods", methods);
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverMetrics{" + analysisId + ", " +
+                methodMetrics.size() + " methods}";
+    }
+
+    /**
+     * Metrics of the work of the solver on a method.
+     */
+    public static class MethodMetrics {
+
+        private final Object method;
+
+        private long nodeVisits;
+
+        private long transferNodeCalls;
+
+        private long meetIntoCalls;
+
+        private long changedFacts;
+
+        private int maxFactSize;
+
+        private long time;
+
+        private MethodMetrics(Object method) {
+            this.method = method;
+        }
+
+        public Object getMethod() {
+            return method;
+        }
+
+        public long getNodeVisits() {
+            return nodeVisits;
+        }
+
+        public long getTransferNodeCalls() {
+            return transferNodeCalls;
+        }
+
+        public long getMeetIntoCalls() {
+            return meetIntoCalls;
+        }
+
+        public long getChangedFacts() {
+            return changedFacts;
+        }
+
+        public int getMaxFactSize() {
+            return maxFactSize;
+        }
+
+        /**
+         * @return the time spent on the nodes of the method in nanoseconds.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("method", method.toString());
+            map.put("node-visits", nodeVisits);
+            map.put("transfer-node", transferNodeCalls);
+            map.put("meet-into", meetIntoCalls);
+            map.put("facts-changed", changedFacts);
+            map.put("max-fact-size", maxFactSize);
+            map.put("time-ms", time / 1_000_000.0);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return "MethodMetrics" + toMap();
+        }
+    }
+}
@@ -22,6 +22,8 @@
 
 package pascal.taie.analysis.graph.callgraph;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.ir.stmt.Invoke;
@@ -30,6 +32,8 @@ import pascal.taie.language.classes.ClassHierarchy;
 import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.classes.Subsignature;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -39,8 +43,26 @@ import java.util.stream.Collectors;
  */
 class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
+    private static final Logger logger = LogManager.getLogger(CHABuilder.class);
+
     private ClassHierarchy hierarchy;
 
+    /**
+     * Cache of {@link #dispatch(JClass, Subsignature)}. As {@link TwoKeyMap}
+     * does not permit {@code null} values, the {@code null} results are
+     * cached as {@link Optional#empty()}.
+     */
+    private final TwoKeyMap<JClass, Subsignature, Optional<JMethod>> dispatchTable =
+            Maps.newTwoKeyMap();
+
+    /**
+     * Cache of {@link #resolve(Invoke)}. The callees of a call site only
+     * depend on the declaring class and subsignature of its method
+     * reference and its call kind, thus the call sites with the same key
+     * share the resolved callees.
+     */
+    private final Map<ResolveKey, Set<JMethod>> resolveTable = new HashMap<>();
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
@@ -86,37 +108,33 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      */
     private Set<JMethod> resolve(Invoke callSite) {
         // TODO - finish me
+        CallKind callKind = CallGraphs.getCallKind(callSite);
+        MethodRef methodRef = callSite.getMethodRef();
+        return resolveTable.computeIfAbsent(new ResolveKey(
+                methodRef.getDeclaringClass(), methodRef.getSubsignature(),
+                callKind), this::resolve);
+    }
+
+    private Set<JMethod> resolve(ResolveKey key) {
         Set<JMethod> res = new HashSet<>();
 
-        CallKind callKind = CallGraphs.getCallKind(callSite);
-        final JClass declaringClass = callSite.getMethodRef().getDeclaringClass();
-        Subsignature subsignature = callSite.getMethodRef().getSubsignature();
+        CallKind callKind = key.callKind();
+        final JClass declaringClass = key.declaringClass();
+        Subsignature subsignature = key.subsignature();
 
         switch (callKind){
             case STATIC, SPECIAL -> res.add(dispatch(declaringClass, subsignature));
 
             default -> {
-                Queue<JClass> queue = new ArrayDeque<>();
-                queue.offer(declaringClass);
-
-                while(!queue.isEmpty()){
-                    JClass jClass = queue.poll();
+                for (JClass jClass : hierarchy.getAllSubclassesOf(declaringClass)) {
                     JMethod dispatch = dispatch(jClass, subsignature);
-
-                    if(dispatch != null){
+                    if (dispatch != null) {
                         res.add(dispatch);
                     }
-
-                    if(jClass.isInterface()){
-                        queue.addAll(hierarchy.getDirectImplementorsOf(jClass));
-                        queue.addAll(hierarchy.getDirectSubinterfacesOf(jClass));
-                    }else{
-                        queue.addAll(hierarchy.getDirectSubclassesOf(jClass));
-                    }
                 }
             }
         }
-        return res;
+        return Collections.unmodifiableSet(res);
     }
 
     /**
@@ -128,12 +146,23 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
         if(jclass == null) return null;
 
-        System.out.println(jclass + " --> " + subsignature);
+        Optional<JMethod> cached = dispatchTable.get(jclass, subsignature);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        logger.debug("{} --> {}", jclass, subsignature);
+        JMethod target;
         JMethod declaredMethod = jclass.getDeclaredMethod(subsignature);
         if(declaredMethod != null && !declaredMethod.isAbstract()){
-            return declaredMethod;
+            target = declaredMethod;
         }else{
-            return dispatch(jclass.getSuperClass(), subsignature);
+            target = dispatch(jclass.getSuperClass(), subsignature);
         }
+        dispatchTable.put(jclass, subsignature, Optional.ofNullable(target));
+        return target;
+    }
+
+    private record ResolveKey(JClass declaringClass, Subsignature subsignature,
+                              CallKind callKind) {
     }
 }
@@ -0,0 +1,572 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Sets;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * ICFG that stores its edges in compressed sparse row (CSR) form.
+ * <p>
+ * The nodes are numbered globally. The incoming and outgoing edges of
+ * node {@code n} are stored in {@code int} arrays of edge targets (or
+ * sources) within range {@code [offsets[n], offsets[n + 1])}, together
+ * with a byte array of edge kinds, and an {@code int} array of labels
+ * which hold the call sites of {@link ReturnEdge}s and the positions of the
+ * CFG edges of the other intra-procedural edges. Thus, no ICFG edge objects
+ * are kept; the {@link ICFGEdge}s and the node sets returned by the
+ * queries are lightweight views over the arrays, whose edges are created
+ * on iteration in constant time from the CFG edges and the return
+ * variables and exceptions of the callees, which are computed once for
+ * each method. The edges equal to the ones of the ICFG built by
+ * {@link ICFGBuilder}.
+ * <p>
+ * The nodes of a method are numbered consecutively from a base number of
+ * the method, i.e., the number of a node is the base number of its method
+ * plus its index in the CFG, and the method of a number is found by binary
+ * search on the base numbers. As a {@link Stmt} does not know its method,
+ * the number of a node is looked up in an open-addressing table of
+ * {@code int}s keyed by the identity of the node.
+ */
+class CompactICFG extends AbstractICFG<JMethod, Stmt> {
+
+    private static final Logger logger = LogManager.getLogger(CompactICFG.class);
+
+    // ---------- edge kinds ----------
+    private static final byte NORMAL = 0;
+
+    private static final byte CALL_TO_RETURN = 1;
+
+    private static final byte CALL = 2;
+
+    private static final byte RETURN = 3;
+    // --------------------------------
+
+    /**
+     * Node of each number.
+     */
+    private final Stmt[] nodes;
+
+    /**
+     * Open-addressing table of the numbers of the nodes, probed linearly
+     * from the identity hash code of a node. Each slot holds the number
+     * of a node plus one, or 0 if the slot is empty.
+     */
+    private final int[] numberTable;
+
+    /**
+     * Methods in the ascending order of their base numbers.
+     */
+    private final MethodNodes[] methods;
+
+    /**
+     * Base numbers of {@link #methods}.
+     */
+    private final int[] bases;
+
+    /**
+     * CFG edges of the {@link #NORMAL} and {@link #CALL_TO_RETURN} edges,
+     * which are indexed by the labels of the edges.
+     */
+    private final List<Edge<Stmt>> cfgEdges = new ArrayList<>();
+
+    private final Adjacency inEdges;
+
+    private final Adjacency outEdges;
+
+    CompactICFG(CallGraph<Stmt, JMethod> callGraph) {
+        super(callGraph);
+        // number the nodes
+        List<MethodNodes> methodList = new ArrayList<>();
+        int size = 0;
+        for (JMethod method : callGraph) {
+            CFG<Stmt> cfg = ICFGBuilder.getCFGOf(method);
+            if (cfg == null) {
+                logger.warn("CFG of {} is absent, try to fix this by" +
+                        " adding option -scope=reachable", method);
+                continue;
+            }
+            methodList.add(new MethodNodes(cfg, size));
+            size += cfg.getNumberOfNodes();
+        }
+        methods = methodList.toArray(new MethodNodes[0]);
+        bases = new int[methods.length];
+        nodes = new Stmt[size];
+        // keeps the load factor of the table at most 1/2
+        numberTable = new int[Integer.highestOneBit(Math.max(size, 1)) << 2];
+        for (int i = 0; i < methods.length; ++i) {
+            MethodNodes m = methods[i];
+            bases[i] = m.base;
+            for (Stmt node : m.cfg) {
+                int number = m.numberOf(node);
+                nodes[number] = node;
+                int slot = hash(node);
+                while (numberTable[slot] != 0) {
+                    slot = (slot + 1) & (numberTable.length - 1);
+                }
+                numberTable[slot] = number + 1;
+            }
+        }
+        // collect the edges
+        EdgeList edges = new EdgeList();
+        for (int source = 0; source < nodes.length; ++source) {
+            Stmt node = nodes[source];
+            byte kind = isCallSite(node) ? CALL_TO_RETURN : NORMAL;
+            for (Edge<Stmt> edge : getMethodNodes(source).cfg.getOutEdgesOf(node)) {
+                edges.add(source, getNumber(edge.getTarget()),
+                        kind, cfgEdges.size());
+                cfgEdges.add(edge);
+            }
+            if (isCallSite(node)) {
+                for (JMethod callee : getCalleesOf(node)) {
+                    if (ICFGBuilder.getCFGOf(callee) == null) {
+                        logger.warn("CFG of {} is missing", callee);
+                        continue;
+                    }
+                    int entry = getNumber(getEntryOf(callee));
+                    int exit = getNumber(getExitOf(callee));
+                    edges.add(source, entry, CALL, -1);
+                    for (Stmt returnSite : getReturnSitesOf(node)) {
+                        edges.add(exit, getNumber(returnSite), RETURN, source);
+                    }
+                }
+            }
+        }
+        edges.removeDuplicates(nodes.length);
+        outEdges = new Adjacency(edges, true);
+        inEdges = new Adjacency(edges, false);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        return new EdgeSet(inEdges, getNumber(stmt));
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        return new EdgeSet(outEdges, getNumber(stmt));
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return ICFGBuilder.getCFGOf(method).getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return ICFGBuilder.getCFGOf(method).getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt stmt) {
+        assert isCallSite(stmt);
+        return getCFGOf(stmt).getSuccsOf(stmt);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        return getCFGOf(stmt).getMethod();
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        return findNumber(stmt) != -1;
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return hasNode(source) && hasNode(target) &&
+                outEdges.indexOf(getNumber(source), getNumber(target)) != -1;
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return new NodeSet(inEdges, getNumber(stmt));
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return new NodeSet(outEdges, getNumber(stmt));
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Stmt stmt && hasNode(stmt);
+            }
+
+            @Override
+            public Iterator<Stmt> iterator() {
+                return Arrays.asList(nodes).iterator();
+            }
+
+            @Override
+            public int size() {
+                return nodes.length;
+            }
+        };
+    }
+
+    private int hash(Stmt stmt) {
+        int h = System.identityHashCode(stmt);
+        return (h ^ (h >>> 16)) & (numberTable.length - 1);
+    }
+
+    /**
+     * @return the number of given node, or -1 if the node is absent.
+     */
+    private int findNumber(Stmt stmt) {
+        for (int slot = hash(stmt); numberTable[slot] != 0;
+             slot = (slot + 1) & (numberTable.length - 1)) {
+            int number = numberTable[slot] - 1;
+            if (nodes[number] == stmt) {
+                return number;
+            }
+        }
+        return -1;
+    }
+
+    private int getNumber(Stmt stmt) {
+        int number = findNumber(stmt);
+        if (number == -1) {
+            throw new IllegalArgumentException(stmt + " is not in the ICFG");
+        }
+        return number;
+    }
+
+    private CFG<Stmt> getCFGOf(Stmt stmt) {
+        return getMethodNodes(getNumber(stmt)).cfg;
+    }
+
+    /**
+     * @return the method containing the node of given number.
+     */
+    private MethodNodes getMethodNodes(int number) {
+        int i = Arrays.binarySearch(bases, number);
+        // the base numbers are distinct, as every CFG has an entry and an exit
+        return methods[i >= 0 ? i : -i - 2];
+    }
+
+    /**
+     * Creates the {@link ICFGEdge} from node {@code source} to
+     * node {@code target} of given kind.
+     */
+    private ICFGEdge<Stmt> createEdge(int source, int target,
+                                      byte kind, int label) {
+        Stmt s = nodes[source], t = nodes[target];
+        return switch (kind) {
+            case NORMAL -> new NormalEdge<>(cfgEdges.get(label));
+            case CALL_TO_RETURN -> new CallToReturnEdge<>(cfgEdges.get(label));
+            case CALL -> new CallEdge<>(s, t, getMethodNodes(target).cfg.getMethod());
+            default -> {
+                MethodNodes callee = getMethodNodes(source);
+                yield new ReturnEdge<>(s, t, nodes[label],
+                        callee.returnVars, callee.exceptions);
+            }
+        };
+    }
+
+    /**
+     * Nodes of a method, which are numbered from {@code base} in the
+     * order of their indexes, together with the return variables and
+     * the exceptions of the edges returning from the method.
+     */
+    private static class MethodNodes {
+
+        private final CFG<Stmt> cfg;
+
+        private final int base;
+
+        private final Set<Var> returnVars = Sets.newHybridSet();
+
+        private final Set<ClassType> exceptions = Sets.newHybridSet();
+
+        private MethodNodes(CFG<Stmt> cfg, int base) {
+            this.cfg = cfg;
+            this.base = base;
+            cfg.getInEdgesOf(cfg.getExit()).forEach(e -> {
+                if (e.getKind() == Edge.Kind.RETURN &&
+                        ((Return) e.getSource()).getValue() != null) {
+                    returnVars.add(((Return) e.getSource()).getValue());
+                }
+                if (e.isExceptional()) {
+                    exceptions.addAll(e.getExceptions());
+                }
+            });
+        }
+
+        private int numberOf(Stmt node) {
+            return base + node.getIndex();
+        }
+    }
+
+    /**
+     * Growable edge list, which is only used during construction.
+     */
+    private static class EdgeList {
+
+        private int size = 0;
+
+        private int[] sources = new int[64];
+
+        private int[] targets = new int[64];
+
+        private byte[] kinds = new byte[64];
+
+        private int[] labels = new int[64];
+
+        private void add(int source, int target, byte kind, int label) {
+            if (size == sources.length) {
+                int capacity = size << 1;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            kinds[size] = kind;
+            labels[size] = label;
+            ++size;
+        }
+
+        /**
+         * Removes the edges whose sources and targets are the same as the
+         * ones of the edges added before them. Like the edge sets of
+         * {@link ICFGBuilder}, only the first one of the equal edges is kept.
+         * The remaining edges keep the order in which they were added.
+         */
+        private void removeDuplicates(int nodeCount) {
+            // sorts the edges of each source by their targets,
+            // and then by the order in which they were added
+            int[] offsets = new int[nodeCount + 1];
+            for (int i = 0; i < size; ++i) {
+                ++offsets[sources[i] + 1];
+            }
+            for (int n = 0; n < nodeCount; ++n) {
+                offsets[n + 1] += offsets[n];
+            }
+            long[] row = new long[size];
+            int[] next = Arrays.copyOf(offsets, nodeCount);
+            for (int i = 0; i < size; ++i) {
+                row[next[sources[i]]++] = ((long) targets[i] << 32) | i;
+            }
+            boolean[] duplicate = new boolean[size];
+            for (int n = 0; n < nodeCount; ++n) {
+                Arrays.sort(row, offsets[n], offsets[n + 1]);
+                for (int j = offsets[n] + 1; j < offsets[n + 1]; ++j) {
+                    if ((row[j] >>> 32) == (row[j - 1] >>> 32)) {
+                        duplicate[(int) row[j]] = true;
+                    }
+                }
+            }
+            int newSize = 0;
+            for (int i = 0; i < size; ++i) {
+                if (!duplicate[i]) {
+                    sources[newSize] = sources[i];
+                    targets[newSize] = targets[i];
+                    kinds[newSize] = kinds[i];
+                    labels[newSize] = labels[i];
+                    ++newSize;
+                }
+            }
+            size = newSize;
+        }
+    }
+
+    /**
+     * Edges of the nodes in one direction in CSR form.
+     */
+    private class Adjacency {
+
+        /**
+         * Edges of node {@code n} are at {@code [offsets[n], offsets[n + 1])}.
+         */
+        private final int[] offsets;
+
+        /**
+         * Targets of outgoing edges, or sources of incoming edges.
+         */
+        private final int[] adjacent;
+
+        private final byte[] kinds;
+
+        private final int[] labels;
+
+        private Adjacency(EdgeList edges, boolean out) {
+            int[] keys = out ? edges.sources : edges.targets;
+            int[] values = out ? edges.targets : edges.sources;
+            offsets = new int[nodes.length + 1];
+            for (int i = 0; i < edges.size; ++i) {
+                ++offsets[keys[i] + 1];
+            }
+            for (int n = 0; n < nodes.length; ++n) {
+                offsets[n + 1] += offsets[n];
+            }
+            adjacent = new int[edges.size];
+            kinds = new byte[edges.size];
+            labels = new int[edges.size];
+            int[] next = Arrays.copyOf(offsets, nodes.length);
+            // edges of each node keep the order in which they were added
+            for (int i = 0; i < edges.size; ++i) {
+                int pos = next[keys[i]]++;
+                adjacent[pos] = values[i];
+                kinds[pos] = edges.kinds[i];
+                labels[pos] = edges.labels[i];
+            }
+        }
+
+        /**
+         * @return position of the edge between node {@code n} and
+         * node {@code m}, or -1 if the edge is absent.
+         */
+        private int indexOf(int n, int m) {
+            for (int i = offsets[n]; i < offsets[n + 1]; ++i) {
+                if (adjacent[i] == m) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private ICFGEdge<Stmt> getEdge(int n, int i) {
+            return this == outEdges ?
+                    createEdge(n, adjacent[i], kinds[i], labels[i]) :
+                    createEdge(adjacent[i], n, kinds[i], labels[i]);
+        }
+    }
+
+    /**
+     * View of the edges of a node.
+     */
+    private class EdgeSet extends AbstractSet<ICFGEdge<Stmt>> {
+
+        private final Adjacency adjacency;
+
+        private final int node;
+
+        private EdgeSet(Adjacency adjacency, int node) {
+            this.adjacency = adjacency;
+            this.node = node;
+        }
+
+        @Override
+        public Iterator<ICFGEdge<Stmt>> iterator() {
+            return new Iterator<>() {
+
+                private int i = adjacency.offsets[node];
+
+                @Override
+                public boolean hasNext() {
+                    return i < adjacency.offsets[node + 1];
+                }
+
+                @Override
+                public ICFGEdge<Stmt> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return adjacency.getEdge(node, i++);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return adjacency.offsets[node + 1] - adjacency.offsets[node];
+        }
+    }
+
+    /**
+     * View of the adjacent nodes of a node.
+     */
+    private class NodeSet extends AbstractSet<Stmt> {
+
+        private final Adjacency adjacency;
+
+        private final int node;
+
+        private NodeSet(Adjacency adjacency, int node) {
+            this.adjacency = adjacency;
+            this.node = node;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Stmt other && hasNode(other) &&
+                    adjacency.indexOf(node, getNumber(other)) != -1;
+        }
+
+        @Override
+        public Iterator<Stmt> iterator() {
+            return new Iterator<>() {
+
+                private int i = adjacency.offsets[node];
+
+                @Override
+                public boolean hasNext() {
+                    return i < adjacency.offsets[node + 1];
+                }
+
+                @Override
+                public Stmt next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return nodes[adjacency.adjacent[i++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return adjacency.offsets[node + 1] - adjacency.offsets[node];
+        }
+    }
+}
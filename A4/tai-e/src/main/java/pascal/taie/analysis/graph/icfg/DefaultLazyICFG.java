@@ -0,0 +1,250 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.World;
+import pascal.taie.analysis.exception.ThrowAnalysis;
+import pascal.taie.analysis.exception.ThrowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.cfg.Edge;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.Scope;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Return;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.ClassType;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.Views;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link LazyICFG} of {@link JMethod}s and {@link Stmt}s.
+ * <p>
+ * The CFG of a method is built when the method is built, unless it has
+ * been built by {@link CFGBuilder}, thus the methods that are never
+ * built do not cost the time and memory of building their CFGs.
+ * <p>
+ * As {@link ICFGBuilder}, this ICFG only contains the methods in the
+ * scope of method analyses (see option {@code -scope}), e.g., the
+ * library methods are never built under {@code -scope=app}.
+ */
+class DefaultLazyICFG extends AbstractICFG<JMethod, Stmt>
+        implements LazyICFG<JMethod, Stmt> {
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> inEdges = Maps.newMultiMap();
+
+    private final MultiMap<Stmt, ICFGEdge<Stmt>> outEdges = Maps.newMultiMap();
+
+    private final Map<Stmt, CFG<Stmt>> stmtToCFG = new LinkedHashMap<>();
+
+    private final Set<JMethod> builtMethods = Sets.newSet();
+
+    private final ThrowAnalysis throwAnalysis;
+
+    private final CFGBuilder cfgBuilder;
+
+    private final String scope;
+
+    /**
+     * @param exception the kinds of exceptions considered by the CFGs,
+     *                  see option {@code exception} of {@link CFGBuilder}.
+     */
+    DefaultLazyICFG(CallGraph<Stmt, JMethod> callGraph, String exception) {
+        super(callGraph);
+        throwAnalysis = exception.equals("none") ? null :
+                new ThrowAnalysis(new AnalysisConfig(ThrowAnalysis.ID,
+                        "exception", exception, "algorithm", "intra"));
+        cfgBuilder = new CFGBuilder(new AnalysisConfig(CFGBuilder.ID,
+                "exception", exception, "dump", false));
+        scope = World.get().getOptions().getScope();
+        entryMethods().forEach(this::build);
+    }
+
+    @Override
+    public Collection<Stmt> build(JMethod method) {
+        if (!isInScope(method) || !builtMethods.add(method)) {
+            return List.of();
+        }
+        CFG<Stmt> cfg = getCFGOf(method);
+        cfg.forEach(stmt -> {
+            stmtToCFG.put(stmt, cfg);
+            cfg.getOutEdgesOf(stmt).forEach(edge -> addEdge(isCallSite(stmt) ?
+                    new CallToReturnEdge<>(edge) : new NormalEdge<>(edge)));
+        });
+        // connects the call sites of the method to the built callees
+        cfg.forEach(stmt -> {
+            if (isCallSite(stmt)) {
+                getCalleesOf(stmt).forEach(callee -> {
+                    if (isBuilt(callee)) {
+                        addCallEdges(stmt, callee);
+                    }
+                });
+            }
+        });
+        // connects the built callers to the method
+        getCallersOf(method).forEach(callSite -> {
+            if (hasNode(callSite)) {
+                addCallEdges(callSite, method);
+            }
+        });
+        return Collections.unmodifiableCollection(cfg.getNodes());
+    }
+
+    @Override
+    public boolean isBuilt(JMethod method) {
+        return builtMethods.contains(method);
+    }
+
+    /**
+     * @return true if the given method is in the scope of method analyses,
+     * i.e., {@link CFGBuilder} builds its CFG for the eager ICFG.
+     */
+    private boolean isInScope(JMethod method) {
+        if (method.isAbstract() || method.isNative()) {
+            return false;
+        }
+        return !scope.equals(Scope.APP) ||
+                method.getDeclaringClass().isApplication();
+    }
+
+    /**
+     * @return the CFG of the given method, which is built if absent.
+     */
+    private CFG<Stmt> getCFGOf(JMethod method) {
+        IR ir = method.getIR();
+        CFG<Stmt> cfg = ir.getResult(CFGBuilder.ID);
+        if (cfg == null) {
+            if (throwAnalysis != null &&
+                    ir.getResult(ThrowAnalysis.ID) == null) {
+                ThrowResult throwResult = throwAnalysis.analyze(ir);
+                ir.storeResult(ThrowAnalysis.ID, throwResult);
+            }
+            cfg = cfgBuilder.analyze(ir);
+            ir.storeResult(CFGBuilder.ID, cfg);
+        }
+        return cfg;
+    }
+
+    private void addCallEdges(Stmt callSite, JMethod callee) {
+        Stmt entry = getEntryOf(callee);
+        addEdge(new CallEdge<>(callSite, entry, callee));
+        Stmt exit = getExitOf(callee);
+        Set<Var> retVars = Sets.newHybridSet();
+        Set<ClassType> exceptions = Sets.newHybridSet();
+        // collect return variables and exceptions
+        getCFGOf(callee).getInEdgesOf(exit).forEach(edge -> {
+            if (edge.getKind() == Edge.Kind.RETURN) {
+                Var retVar = ((Return) edge.getSource()).getValue();
+                if (retVar != null) {
+                    retVars.add(retVar);
+                }
+            }
+            if (edge.isExceptional()) {
+                exceptions.addAll(edge.getExceptions());
+            }
+        });
+        getReturnSitesOf(callSite).forEach(retSite -> addEdge(
+                new ReturnEdge<>(exit, retSite, callSite, retVars, exceptions)));
+    }
+
+    private void addEdge(ICFGEdge<Stmt> edge) {
+        outEdges.put(edge.getSource(), edge);
+        inEdges.put(edge.getTarget(), edge);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getInEdgesOf(Stmt stmt) {
+        return inEdges.get(stmt);
+    }
+
+    @Override
+    public Set<ICFGEdge<Stmt>> getOutEdgesOf(Stmt stmt) {
+        return outEdges.get(stmt);
+    }
+
+    @Override
+    public Stmt getEntryOf(JMethod method) {
+        return getCFGOf(method).getEntry();
+    }
+
+    @Override
+    public Stmt getExitOf(JMethod method) {
+        return getCFGOf(method).getExit();
+    }
+
+    @Override
+    public Set<Stmt> getReturnSitesOf(Stmt stmt) {
+        assert isCallSite(stmt);
+        return stmtToCFG.get(stmt).getSuccsOf(stmt);
+    }
+
+    @Override
+    public JMethod getContainingMethodOf(Stmt stmt) {
+        return stmtToCFG.get(stmt).getMethod();
+    }
+
+    @Override
+    public boolean isCallSite(Stmt stmt) {
+        return stmt instanceof Invoke;
+    }
+
+    @Override
+    public boolean hasNode(Stmt stmt) {
+        return stmtToCFG.containsKey(stmt);
+    }
+
+    @Override
+    public boolean hasEdge(Stmt source, Stmt target) {
+        return getOutEdgesOf(source)
+                .stream()
+                .anyMatch(edge -> edge.getTarget().equals(target));
+    }
+
+    @Override
+    public Set<Stmt> getPredsOf(Stmt stmt) {
+        return Views.toMappedSet(getInEdgesOf(stmt), ICFGEdge::getSource);
+    }
+
+    @Override
+    public Set<Stmt> getSuccsOf(Stmt stmt) {
+        return Views.toMappedSet(getOutEdgesOf(stmt), ICFGEdge::getTarget);
+    }
+
+    @Override
+    public Set<Stmt> getNodes() {
+        return Collections.unmodifiableSet(stmtToCFG.keySet());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import java.util.Collection;
+
+/**
+ * Represents an inter-procedural control-flow graph whose methods are
+ * built on demand. Initially, it contains only the entry methods; the
+ * nodes and edges of other methods are added by {@link #build(Object)}.
+ * The edges between two methods are present if both methods are built.
+ */
+public interface LazyICFG<Method, Node> extends ICFG<Method, Node> {
+
+    /**
+     * Adds the nodes and edges of the given method to this ICFG.
+     *
+     * @return the nodes of the given method, or an empty collection
+     * if the method has already been built or cannot be built,
+     * e.g., it is out of the scope of the analysis.
+     */
+    Collection<Node> build(Method method);
+
+    /**
+     * @return true if the given method has been built, otherwise false.
+     */
+    boolean isBuilt(Method method);
+}
@@ -75,6 +75,24 @@ public interface ClassHierarchy {
      */
     Collection<JClass> getDirectSubclassesOf(JClass jclass);
 
+    /**
+     * @return true if {@code subclass} is {@code superclass} itself, or its
+     * direct or indirect subclass, subinterface, or implementor.
+     * All classes and interfaces are subclasses of {@code java.lang.Object}.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass);
+
+    /**
+     * @return all subclasses of given class, including itself, i.e., all
+     * {@code c} that {@link #isSubclass(JClass, JClass) isSubclass(jclass, c)}.
+     * For an interface, the result contains its direct and indirect
+     * subinterfaces and implementors, and the subclasses of the implementors.
+     * The result is not limited to concrete classes, i.e., it also contains
+     * abstract classes and interfaces; callers that need only concrete
+     * classes should filter the others.
+     */
+    Collection<JClass> getAllSubclassesOf(JClass jclass);
+
     /**
      * Obtains a JRE class by it name.
      *
@@ -28,8 +28,10 @@ import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.util.AnalysisException;
 
 import javax.annotation.Nullable;
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -65,6 +67,12 @@ public class ClassHierarchyImpl implements ClassHierarchy {
      */
     private final Map<JClass, Set<JClass>> directSubclasses = newMap();
 
+    /**
+     * Index of the subclass relations, which is built on demand,
+     * and discarded when a class is added to this hierarchy.
+     */
+    private volatile SubclassIndex subclassIndex;
+
     @Override
     public void setDefaultClassLoader(JClassLoader loader) {
         this.defaultLoader = loader;
@@ -117,6 +125,7 @@ public class ClassHierarchyImpl implements ClassHierarchy {
                         .add(jclass);
             }
         }
+        subclassIndex = null;
     }
 
     @Override
@@ -160,6 +169,82 @@ public class ClassHierarchyImpl implements ClassHierarchy {
         return directSubclasses.getOrDefault(jclass, Set.of());
     }
 
+    @Override
+    public boolean isSubclass(JClass superclass, JClass subclass) {
+        SubclassIndex index = getSubclassIndex();
+        if (index.contains(superclass) && index.contains(subclass)) {
+            return index.isSubclass(superclass, subclass);
+        }
+        // classes absent from the index are checked by traversing
+        // their superclasses and superinterfaces
+        if (superclass.equals(subclass) || isObject(superclass)) {
+            return true;
+        }
+        JClass superClass = subclass.getSuperClass();
+        if (!subclass.isInterface() && superClass != null
+                && isSubclass(superclass, superClass)) {
+            return true;
+        }
+        for (JClass iface : subclass.getInterfaces()) {
+            if (isSubclass(superclass, iface)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Collection<JClass> getAllSubclassesOf(JClass jclass) {
+        SubclassIndex index = getSubclassIndex();
+        if (index.contains(jclass)) {
+            return index.getSubclassesOf(jclass);
+        }
+        // classes absent from the index are handled by traversing
+        // the direct subclass relations
+        Set<JClass> subclasses = newHybridSet();
+        if (isObject(jclass)) {
+            subclasses.add(jclass);
+            allClasses().forEach(subclasses::add);
+            return subclasses;
+        }
+        Queue<JClass> queue = new ArrayDeque<>();
+        queue.add(jclass);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (subclasses.add(c)) {
+                if (c.isInterface()) {
+                    queue.addAll(getDirectImplementorsOf(c));
+                    queue.addAll(getDirectSubinterfacesOf(c));
+                } else {
+                    queue.addAll(getDirectSubclassesOf(c));
+                }
+            }
+        }
+        return subclasses;
+    }
+
+    /**
+     * @return true if given class is {@code java.lang.Object}, whose
+     * subclasses include all interfaces.
+     */
+    private static boolean isObject(JClass jclass) {
+        return jclass.getName().equals(ClassNames.OBJECT);
+    }
+
+    private SubclassIndex getSubclassIndex() {
+        SubclassIndex index = subclassIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = subclassIndex;
+                if (index == null) {
+                    index = new SubclassIndex(this);
+                    subclassIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     private static boolean checkCHA = false;
 
     public static void setCheckCHA(boolean checkCHA) {
@@ -0,0 +1,297 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.language.classes;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static pascal.taie.util.collection.Maps.newMap;
+import static pascal.taie.util.collection.Sets.newSet;
+
+/**
+ * Index of the subclass relations in a {@link ClassHierarchy}, which
+ * answers subclass tests in constant time, and iterates the subclasses
+ * of a class without traversing the hierarchy.
+ * <p>
+ * The classes (except interfaces) are numbered in pre-order of the trees
+ * formed by the direct subclass relations, so that the subclasses of
+ * a class, including itself, are numbered contiguously in interval
+ * {@code [number, end)} of the class. The interfaces are numbered after
+ * the classes, and each interface has a bit set of the numbers of its
+ * subclasses, i.e., itself and its direct and indirect subinterfaces,
+ * implementors, and subclasses of the implementors. As every interface
+ * is a subtype of {@code java.lang.Object}, which is not captured by the
+ * intervals, all indexed classes and interfaces are the subclasses of
+ * {@code java.lang.Object}.
+ */
+final class SubclassIndex {
+
+    /**
+     * Classes and interfaces ordered by their numbers.
+     */
+    private final JClass[] classes;
+
+    private final Map<JClass, Integer> numbers = newMap();
+
+    /**
+     * End (exclusive) of the interval of each class.
+     */
+    private final int[] ends;
+
+    /**
+     * Number of the classes that are not interfaces, which is also
+     * the number of the first interface.
+     */
+    private final int nonInterfaces;
+
+    /**
+     * Subclasses of each interface, indexed by the number of
+     * the interface minus {@link #nonInterfaces}.
+     */
+    private final BitSet[] interfaceSubclasses;
+
+    /**
+     * Number of {@code java.lang.Object}, or -1 if it is not indexed.
+     */
+    private final int object;
+
+    SubclassIndex(ClassHierarchy hierarchy) {
+        Set<JClass> classSet = newSet();
+        List<JClass> interfaces = new ArrayList<>();
+        hierarchy.allClasses().forEach(c -> {
+            if (c.isInterface()) {
+                interfaces.add(c);
+            } else {
+                classSet.add(c);
+            }
+        });
+        List<JClass> order = new ArrayList<>(classSet.size() + interfaces.size());
+        List<Integer> endList = new ArrayList<>(classSet.size());
+        // number the classes in pre-order of the class trees
+        Deque<JClass> stack = new ArrayDeque<>();
+        Deque<Iterator<JClass>> subclasses = new ArrayDeque<>();
+        for (JClass root : classSet) {
+            JClass superClass = root.getSuperClass();
+            if (superClass != null && classSet.contains(superClass)) {
+                continue;
+            }
+            number(root, order, endList);
+            stack.push(root);
+            subclasses.push(hierarchy.getDirectSubclassesOf(root).iterator());
+            while (!stack.isEmpty()) {
+                if (subclasses.peek().hasNext()) {
+                    JClass subclass = subclasses.peek().next();
+                    if (!numbers.containsKey(subclass)) {
+                        number(subclass, order, endList);
+                        stack.push(subclass);
+                        subclasses.push(hierarchy.getDirectSubclassesOf(subclass).iterator());
+                    }
+                } else {
+                    subclasses.pop();
+                    endList.set(numbers.get(stack.pop()), order.size());
+                }
+            }
+        }
+        nonInterfaces = order.size();
+        ends = endList.stream().mapToInt(Integer::intValue).toArray();
+        // number the interfaces, and compute their subclasses
+        interfaces.forEach(i -> {
+            numbers.put(i, order.size());
+            order.add(i);
+        });
+        classes = order.toArray(new JClass[0]);
+        interfaceSubclasses = new BitSet[interfaces.size()];
+        interfaces.forEach(i -> computeSubclasses(hierarchy, i));
+        object = classSet.stream()
+                .filter(c -> c.getName().equals(ClassNames.OBJECT))
+                .findFirst()
+                .map(numbers::get)
+                .orElse(-1);
+    }
+
+    private void number(JClass jclass, List<JClass> order, List<Integer> endList) {
+        numbers.put(jclass, order.size());
+        order.add(jclass);
+        endList.add(order.size());
+    }
+
+    /**
+     * Computes the subclasses of given interface, which are memoized
+     * as the subinterfaces form a directed acyclic graph.
+     */
+    private BitSet computeSubclasses(ClassHierarchy hierarchy, JClass iface) {
+        int number = numbers.get(iface);
+        BitSet result = interfaceSubclasses[number - nonInterfaces];
+        if (result == null) {
+            result = new BitSet(classes.length);
+            result.set(number);
+            for (JClass implementor : hierarchy.getDirectImplementorsOf(iface)) {
+                Integer n = numbers.get(implementor);
+                if (n != null) {
+                    result.set(n, ends[n]);
+                }
+            }
+            for (JClass subinterface : hierarchy.getDirectSubinterfacesOf(iface)) {
+                if (numbers.containsKey(subinterface)) {
+                    result.or(computeSubclasses(hierarchy, subinterface));
+                }
+            }
+            interfaceSubclasses[number - nonInterfaces] = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return true if given class is indexed, otherwise false.
+     */
+    boolean contains(JClass jclass) {
+        return numbers.containsKey(jclass);
+    }
+
+    /**
+     * @return true if {@code subclass} is a subclass of {@code superclass}.
+     * Both classes must be indexed.
+     */
+    boolean isSubclass(JClass superclass, JClass subclass) {
+        int sup = numbers.get(superclass);
+        int sub = numbers.get(subclass);
+        if (sup == object) {
+            return true;
+        } else if (sup < nonInterfaces) {
+            return sup <= sub && sub < ends[sup];
+        } else {
+            return interfaceSubclasses[sup - nonInterfaces].get(sub);
+        }
+    }
+
+    /**
+     * @return the subclasses of given indexed class, including itself.
+     * The returned collection is a view of this index.
+     */
+    Collection<JClass> getSubclassesOf(JClass jclass) {
+        int number = numbers.get(jclass);
+        if (number == object) {
+            return new IntervalView(0, classes.length);
+        } else if (number < nonInterfaces) {
+            return new IntervalView(number, ends[number]);
+        } else {
+            return new BitSetView(interfaceSubclasses[number - nonInterfaces]);
+        }
+    }
+
+    private class IntervalView extends AbstractCollection<JClass> {
+
+        private final int start;
+
+        private final int end;
+
+        private IntervalView(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer n = numbers.get(o);
+            return n != null && start <= n && n < end;
+        }
+
+        @Override
+        public Iterator<JClass> iterator() {
+            return new Iterator<>() {
+
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public JClass next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return classes[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+
+    private class BitSetView extends AbstractCollection<JClass> {
+
+        private final BitSet bits;
+
+        private BitSetView(BitSet bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer n = numbers.get(o);
+            return n != null && bits.get(n);
+        }
+
+        @Override
+        public Iterator<JClass> iterator() {
+            return new Iterator<>() {
+
+                private int next = bits.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public JClass next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    JClass jclass = classes[next];
+                    next = bits.nextSetBit(next + 1);
+                    return jclass;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return bits.cardinality();
+        }
+    }
+}
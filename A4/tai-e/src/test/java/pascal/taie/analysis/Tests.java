@@ -61,6 +61,38 @@ public final class Tests {
      * @param opts      options for the analysis
      */
     public static void test(String main, String classPath, String id, String... opts) {
+        List<String> args = getArgs(main, classPath, id, opts);
+        // set up result processor
+        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
+        String file = getExpectedFile(classPath, main, id);
+        String processArg = String.format("%s=analyses:[%s];action:%s;file:%s",
+                ResultProcessor.ID, id, action, file);
+        Collections.addAll(args, "-a", processArg);
+        Main.main(args.toArray(new String[0]));
+        if (action.equals("compare")) {
+            Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
+            Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
+                            String.join("\n", mismatches),
+                    mismatches.isEmpty());
+        }
+    }
+
+    /**
+     * Starts an analysis for a specific test case without comparing
+     * its results with the expected ones, so that the caller can check
+     * the results in {@link World} by itself.
+     *
+     * @param main      the main class to be analyzed
+     * @param classPath where the main class is located
+     * @param id        ID of the analysis to be executed
+     * @param opts      options for the analysis
+     */
+    public static void analyze(String main, String classPath, String id, String... opts) {
+        Main.main(getArgs(main, classPath, id, opts).toArray(new String[0]));
+    }
+
+    private static List<String> getArgs(
+            String main, String classPath, String id, String... opts) {
         List<String> args = new ArrayList<>();
         args.add("-pp");
         Collections.addAll(args, "-cp", classPath);
@@ -80,19 +112,7 @@ public final class Tests {
             Collections.addAll(args, "-a", id);
             Collections.addAll(args, opts);
         }
-        // set up result processor
-        String action = GENERATE_EXPECTED_RESULTS ? "dump" : "compare";
-        String file = getExpectedFile(classPath, main, id);
-        String processArg = String.format("%s=analyses:[%s];action:%s;file:%s",
-                ResultProcessor.ID, id, action, file);
-        Collections.addAll(args, "-a", processArg);
-        Main.main(args.toArray(new String[0]));
-        if (action.equals("compare")) {
-            Set<String> mismatches = World.get().getResult(ResultProcessor.ID);
-            Assert.assertTrue("Mismatches of analysis \"" + id + "\":\n" +
-                            String.join("\n", mismatches),
-                    mismatches.isEmpty());
-        }
+        return args;
     }
 
     public static void testPTA(String dir, String main, String... opts) {
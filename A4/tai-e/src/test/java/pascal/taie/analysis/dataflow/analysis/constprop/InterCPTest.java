@@ -22,22 +22,94 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.fact.MappedDataflowResult;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.dataflow.solver.SolverMetrics;
+import pascal.taie.analysis.graph.icfg.CompactICFGBuilder;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.analysis.graph.icfg.LazyICFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class InterCPTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
 
-    void test(String inputClass) {
+    /**
+     * Analyzes given input class with the default options plus
+     * given options, and compares the result with the expected one.
+     */
+    void test(String inputClass, String... options) {
         Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
-                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha"
+                getOptions(options), "-a", "cg=algorithm:cha"
                 // , "-a", "icfg=dump:true" // <-- uncomment this code if you want
                                             // to output ICFGs for the test cases
         );
     }
 
+    /**
+     * Analyzes given input class as {@link #test(String, String...)},
+     * but leaves the result for the caller to check.
+     */
+    void analyze(String inputClass, String... options) {
+        Tests.analyze(inputClass, CLASS_PATH, InterConstantPropagation.ID,
+                getOptions(options), "-a", "cg=algorithm:cha");
+    }
+
+    private static String getOptions(String... options) {
+        return "edge-refine:false;alias-aware:false" + Arrays.stream(options)
+                .map(option -> ";" + option)
+                .collect(Collectors.joining());
+    }
+
+    /**
+     * Analyzes given input class with given options, and checks that
+     * the result on the ICFG given by {@code icfgId} is the same as
+     * the result of the default solver on the default ICFG.
+     */
+    void testSameResult(String inputClass, String icfgId, String... options) {
+        analyze(inputClass);
+        Map<String, Value> expected = getResult(ICFGBuilder.ID);
+        analyze(inputClass, options);
+        Assert.assertEquals(expected, getResult(icfgId));
+    }
+
+    /**
+     * @return the value of every variable at the exit of every node of
+     * the ICFG given by {@code icfgId} in the result of the last run.
+     * The values are keyed by the names of the methods, the indexes of
+     * the nodes and the names of the variables, so that the results of
+     * different runs can be compared.
+     */
+    private static Map<String, Value> getResult(String icfgId) {
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(icfgId);
+        DataflowResult<Stmt, CPFact> result =
+                World.get().getResult(InterConstantPropagation.ID);
+        Map<String, Value> values = new HashMap<>();
+        for (Stmt stmt : icfg) {
+            JMethod method = icfg.getContainingMethodOf(stmt);
+            CPFact out = result.getOutFact(stmt);
+            for (Var var : method.getIR().getVars()) {
+                values.put(method + "#" + stmt.getIndex() + "#" + var.getName(),
+                        out.get(var));
+            }
+        }
+        return values;
+    }
+
     @Test
     public void testExample() {
         test("Example");
@@ -57,4 +129,164 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testPersistentExample() {
+        testSameResult("Example", ICFGBuilder.ID, "persistent:true");
+    }
+
+    @Test
+    public void testPersistentFibonacci() {
+        testSameResult("Fibonacci", ICFGBuilder.ID, "persistent:true");
+    }
+
+    @Test
+    public void testOffHeapExample() {
+        testSameResult("Example", ICFGBuilder.ID, "off-heap:true");
+        Assert.assertTrue(World.get().getResult(InterConstantPropagation.ID)
+                instanceof MappedDataflowResult);
+    }
+
+    @Test
+    public void testOffHeapMultiIntArgs() {
+        testSameResult("MultiIntArgs", ICFGBuilder.ID, "off-heap:true");
+    }
+
+    @Test
+    public void testOffHeapEvictionFibonacci() {
+        // a tiny cache makes the facts evicted and written back,
+        // and moved to larger slots as they grow during solving
+        testSameResult("Fibonacci", ICFGBuilder.ID,
+                "off-heap:true", "off-heap-cache-size:2");
+    }
+
+    @Test
+    public void testMetricsFibonacci() {
+        test("Fibonacci", "metrics:true");
+        SolverMetrics metrics = World.get().getResult(
+                SolverMetrics.getKey(InterConstantPropagation.ID));
+        Assert.assertNotNull(metrics);
+        Assert.assertFalse(metrics.getAllMethodMetrics().isEmpty());
+        metrics.getAllMethodMetrics().forEach(m ->
+                Assert.assertTrue(m.getNodeVisits() > 0));
+    }
+
+    /**
+     * Analyzes given input class by the summary-based solver, and checks
+     * that its result is at least as precise as that of the default solver.
+     */
+    void testSummary(String inputClass) {
+        analyze(inputClass);
+        Map<String, Value> merged = getResult(ICFGBuilder.ID);
+        analyze(inputClass, "summary:true");
+        Map<String, Value> summary = getResult(ICFGBuilder.ID);
+        Assert.assertEquals(merged.keySet(), summary.keySet());
+        merged.forEach((key, value) -> Assert.assertTrue(key,
+                isAsPreciseAs(summary.get(key), value)));
+    }
+
+    /**
+     * @return true if {@code value} is the same as or more precise
+     * than {@code other} in the lattice of constant propagation.
+     */
+    private static boolean isAsPreciseAs(Value value, Value other) {
+        return other.isNAC() || value.isUndef() || value.equals(other);
+    }
+
+    @Test
+    public void testSummaryExample() {
+        testSummary("Example");
+    }
+
+    @Test
+    public void testSummaryReference() {
+        testSummary("Reference");
+    }
+
+    @Test
+    public void testSummaryMultiIntArgs() {
+        testSummary("MultiIntArgs");
+        // foo() is called with (2, 3) and (4, 5), and the summary of
+        // each context flows back to its own call site only
+        IR ir = World.get().getMainMethod().getIR();
+        DataflowResult<Stmt, CPFact> result =
+                World.get().getResult(InterConstantPropagation.ID);
+        CPFact out = result.getOutFact(ir.getStmts().get(ir.getStmts().size() - 1));
+        Assert.assertEquals(Value.makeConstant(5), out.get(getVar(ir, "c")));
+        Assert.assertEquals(Value.makeConstant(6), out.get(getVar(ir, "z")));
+        Assert.assertEquals(Value.makeConstant(20), out.get(getVar(ir, "t")));
+    }
+
+    private static Var getVar(IR ir, String name) {
+        return ir.getVars()
+                .stream()
+                .filter(var -> var.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    public void testParallelFibonacci() {
+        testSameResult("Fibonacci", ICFGBuilder.ID, "parallelism:4");
+    }
+
+    @Test
+    public void testParallelMultiIntArgs() {
+        testSameResult("MultiIntArgs", ICFGBuilder.ID, "parallelism:4");
+    }
+
+    @Test
+    public void testParallelDeterminism() {
+        for (String inputClass : new String[]{"Example", "Fibonacci"}) {
+            Map<String, Value> expected = null;
+            for (int parallelism : new int[]{0, 1, 2, 8}) {
+                test(inputClass, "parallelism:" + parallelism);
+                Map<String, Value> result = getResult(ICFGBuilder.ID);
+                if (expected == null) {
+                    expected = result;
+                } else {
+                    Assert.assertEquals(inputClass + " with parallelism "
+                            + parallelism, expected, result);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompactICFGExample() {
+        testSameResult("Example", CompactICFGBuilder.ID,
+                "icfg:" + CompactICFGBuilder.ID);
+    }
+
+    @Test
+    public void testCompactICFGFibonacci() {
+        testSameResult("Fibonacci", CompactICFGBuilder.ID,
+                "icfg:" + CompactICFGBuilder.ID);
+    }
+
+    @Test
+    public void testLazyICFGExample() {
+        testSameResult("Example", LazyICFGBuilder.ID,
+                "icfg:" + LazyICFGBuilder.ID);
+    }
+
+    @Test
+    public void testLazyICFGMultiIntArgs() {
+        testSameResult("MultiIntArgs", LazyICFGBuilder.ID,
+                "icfg:" + LazyICFGBuilder.ID);
+    }
+
+    @Test
+    public void testLazyICFGReference() {
+        testSameResult("Reference", LazyICFGBuilder.ID,
+                "icfg:" + LazyICFGBuilder.ID);
+    }
+
+    @Test
+    public void testLazyICFGConstantCall() {
+        // ten() is called before any constant is computed in main(),
+        // i.e., only the initial fact flows out of its call site
+        testSameResult("ConstantCall", LazyICFGBuilder.ID,
+                "icfg:" + LazyICFGBuilder.ID);
+    }
 }
@@ -50,4 +50,11 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    @Test
+    public void testDispatchCache() {
+        // call sites sharing resolved callees, and dispatches
+        // that find no method on abstract classes and interfaces
+        test("DispatchCache");
+    }
 }
@@ -0,0 +1,289 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package pascal.taie.language.classes;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.language.annotation.AnnotationHolder;
+import pascal.taie.language.type.ClassType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Tests the subclass queries of {@link ClassHierarchyImpl},
+ * which are answered by {@link SubclassIndex}.
+ * <p>
+ * The hierarchy of the tests is:
+ * <pre>
+ * Object
+ * |-- A
+ * |   |-- B implements J
+ * |   |   `-- D
+ * |   `-- C
+ * `-- E implements L
+ *     `-- F
+ * interface I
+ * interface J extends I
+ * interface K extends I
+ * interface L extends J, K
+ * interface M
+ * </pre>
+ */
+public class ClassHierarchyTest {
+
+    private final List<JClass> loaded = new ArrayList<>();
+
+    private final Map<String, JClass> classes = new TreeMap<>();
+
+    private final ClassHierarchyImpl hierarchy = new ClassHierarchyImpl();
+
+    public ClassHierarchyTest() {
+        hierarchy.setDefaultClassLoader(new JClassLoader() {
+            @Override
+            public JClass loadClass(String name) {
+                return classes.get(name);
+            }
+
+            @Override
+            public Collection<JClass> getLoadedClasses() {
+                return loaded;
+            }
+        });
+        JClass object = newClass(ClassNames.OBJECT, false, null);
+        JClass a = newClass("A", false, object);
+        newClass("I", true, object);
+        newClass("J", true, object, "I");
+        newClass("K", true, object, "I");
+        newClass("L", true, object, "J", "K");
+        newClass("M", true, object);
+        JClass b = newClass("B", false, a, "J");
+        newClass("C", false, a);
+        newClass("D", false, b);
+        JClass e = newClass("E", false, object, "L");
+        newClass("F", false, e);
+    }
+
+    /**
+     * Creates a class, and adds it to the class hierarchy.
+     */
+    private JClass newClass(String name, boolean isInterface,
+                            JClass superClass, String... interfaces) {
+        JClass jclass = createClass(name, isInterface, superClass, interfaces);
+        loaded.add(jclass);
+        classes.put(name, jclass);
+        hierarchy.addClass(jclass);
+        return jclass;
+    }
+
+    private JClass createClass(String name, boolean isInterface,
+                               JClass superClass, String... interfaces) {
+        JClass jclass = new JClass(null, name);
+        jclass.build(new JClassBuilder() {
+            @Override
+            public void build(JClass jclass) {
+            }
+
+            @Override
+            public Set<Modifier> getModifiers() {
+                return isInterface ?
+                        Set.of(Modifier.INTERFACE, Modifier.ABSTRACT) : Set.of();
+            }
+
+            @Override
+            public String getSimpleName() {
+                return name;
+            }
+
+            @Override
+            public ClassType getClassType() {
+                return null;
+            }
+
+            @Override
+            public JClass getSuperClass() {
+                return superClass;
+            }
+
+            @Override
+            public Collection<JClass> getInterfaces() {
+                return List.of(interfaces).stream().map(classes::get).toList();
+            }
+
+            @Override
+            public JClass getOuterClass() {
+                return null;
+            }
+
+            @Override
+            public Collection<JField> getDeclaredFields() {
+                return List.of();
+            }
+
+            @Override
+            public Collection<JMethod> getDeclaredMethods() {
+                return List.of();
+            }
+
+            @Override
+            public AnnotationHolder getAnnotationHolder() {
+                return null;
+            }
+
+            @Override
+            public boolean isApplication() {
+                return true;
+            }
+        });
+        return jclass;
+    }
+
+    private JClass get(String name) {
+        return classes.get(name);
+    }
+
+    /**
+     * Asserts that the subclasses of given class are the given ones.
+     */
+    private void assertSubclasses(String name, String... subclasses) {
+        Collection<JClass> result = hierarchy.getAllSubclassesOf(get(name));
+        Set<JClass> expected = new HashSet<>();
+        for (String subclass : subclasses) {
+            expected.add(get(subclass));
+        }
+        Assert.assertEquals(name, expected, new HashSet<>(result));
+        Assert.assertEquals(name, expected.size(), result.size());
+    }
+
+    /**
+     * Checks the queries on all pairs of classes against
+     * a traversal of the superclasses and superinterfaces.
+     */
+    private void assertConsistent() {
+        for (JClass sup : classes.values()) {
+            Collection<JClass> subclasses = hierarchy.getAllSubclassesOf(sup);
+            for (JClass sub : classes.values()) {
+                boolean expected = isSupertype(sup, sub);
+                Assert.assertEquals(sup + " " + sub,
+                        expected, hierarchy.isSubclass(sup, sub));
+                Assert.assertEquals(sup + " " + sub,
+                        expected, subclasses.contains(sub));
+            }
+        }
+    }
+
+    private static boolean isSupertype(JClass sup, JClass sub) {
+        if (sup == sub || sup.getName().equals(ClassNames.OBJECT)) {
+            return true;
+        }
+        if (sub.getSuperClass() != null && isSupertype(sup, sub.getSuperClass())) {
+            return true;
+        }
+        return sub.getInterfaces().stream().anyMatch(i -> isSupertype(sup, i));
+    }
+
+    @Test
+    public void testClassIntervals() {
+        assertSubclasses("A", "A", "B", "C", "D");
+        assertSubclasses("B", "B", "D");
+        assertSubclasses("C", "C");
+        assertSubclasses("E", "E", "F");
+        Assert.assertTrue(hierarchy.isSubclass(get("A"), get("D")));
+        Assert.assertFalse(hierarchy.isSubclass(get("B"), get("C")));
+        Assert.assertFalse(hierarchy.isSubclass(get("D"), get("A")));
+        Assert.assertFalse(hierarchy.isSubclass(get("A"), get("E")));
+        assertConsistent();
+    }
+
+    @Test
+    public void testDiamondInterfaces() {
+        // L is reachable from I via both J and K, but is counted once
+        assertSubclasses("I", "I", "J", "K", "L", "B", "D", "E", "F");
+        assertSubclasses("K", "K", "L", "E", "F");
+        Assert.assertTrue(hierarchy.isSubclass(get("J"), get("L")));
+        Assert.assertFalse(hierarchy.isSubclass(get("L"), get("J")));
+        Assert.assertFalse(hierarchy.isSubclass(get("J"), get("K")));
+        assertConsistent();
+    }
+
+    @Test
+    public void testImplementorSubclasses() {
+        assertSubclasses("J", "J", "L", "B", "D", "E", "F");
+        assertSubclasses("L", "L", "E", "F");
+        assertSubclasses("M", "M");
+        Assert.assertTrue(hierarchy.isSubclass(get("J"), get("D")));
+        Assert.assertTrue(hierarchy.isSubclass(get("I"), get("F")));
+        Assert.assertFalse(hierarchy.isSubclass(get("M"), get("F")));
+        Assert.assertFalse(hierarchy.isSubclass(get("L"), get("B")));
+    }
+
+    @Test
+    public void testObject() {
+        // interfaces are subclasses of Object, though they are
+        // not in the direct subclasses of Object
+        JClass object = get(ClassNames.OBJECT);
+        for (JClass jclass : classes.values()) {
+            Assert.assertTrue(jclass.toString(),
+                    hierarchy.isSubclass(object, jclass));
+        }
+        Assert.assertEquals(new HashSet<>(classes.values()),
+                new HashSet<>(hierarchy.getAllSubclassesOf(object)));
+        Assert.assertFalse(hierarchy.isSubclass(get("I"), object));
+    }
+
+    @Test
+    public void testAddClass() {
+        assertSubclasses("B", "B", "D");
+        assertSubclasses("M", "M");
+        // the index built by the queries above is discarded
+        newClass("G", false, get("D"), "M");
+        newClass("N", true, get(ClassNames.OBJECT), "M");
+        assertSubclasses("B", "B", "D", "G");
+        assertSubclasses("M", "M", "G", "N");
+        Assert.assertTrue(hierarchy.isSubclass(get("A"), get("G")));
+        Assert.assertTrue(hierarchy.isSubclass(get("J"), get("G")));
+        Assert.assertTrue(hierarchy.isSubclass(get(ClassNames.OBJECT), get("N")));
+        assertConsistent();
+    }
+
+    @Test
+    public void testClassesAbsentFromIndex() {
+        // the classes that are not loaded are absent from the index,
+        // and are checked by traversing the hierarchy
+        JClass object = get(ClassNames.OBJECT);
+        JClass x = createClass("X", false, get("D"), "K");
+        JClass y = createClass("Y", true, object, "L");
+        Assert.assertTrue(hierarchy.isSubclass(get("A"), x));
+        Assert.assertTrue(hierarchy.isSubclass(get("I"), x));
+        Assert.assertFalse(hierarchy.isSubclass(get("C"), x));
+        Assert.assertTrue(hierarchy.isSubclass(get("J"), y));
+        Assert.assertTrue(hierarchy.isSubclass(object, y));
+        Assert.assertFalse(hierarchy.isSubclass(get("M"), y));
+    }
+}
@@ -0,0 +1,41 @@
+interface Shape {
+    int area();
+}
+
+public class DispatchCache {
+
+    public static void main(String[] args) {
+        Shape s = new Square();
+        s.area();
+        s.area();
+        Base b = new Circle();
+        b.id();
+        b.id();
+    }
+}
+
+abstract class Base implements Shape {
+    abstract int id();
+}
+
+class Square extends Base {
+
+    public int area() {
+        return 1;
+    }
+
+    int id() {
+        return 1;
+    }
+}
+
+class Circle extends Base {
+
+    public int area() {
+        return 2;
+    }
+
+    int id() {
+        return 2;
+    }
+}
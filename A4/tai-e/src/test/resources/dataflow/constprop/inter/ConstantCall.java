@@ -0,0 +1,11 @@
+class ConstantCall {
+
+    static void main(String[] args) {
+        int x = ten();
+        int y = x + 1;
+    }
+
+    static int ten() {
+        return 10;
+    }
+}
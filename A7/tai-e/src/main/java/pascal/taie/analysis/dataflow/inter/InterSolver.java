@@ -29,8 +29,7 @@ import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.util.collection.SetQueue;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -47,7 +46,28 @@ class InterSolver<Method, Node, Fact> {
 
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private InterWorkList<Method, Node> workList;
+
+    /**
+     * Logical time of the solver, which is increased whenever
+     * the OUT fact of a node changes.
+     */
+    private int time;
+
+    /**
+     * Time when the OUT fact of each node changed for the last time,
+     * indexed by the ranks of the nodes in {@link #workList}.
+     */
+    private int[] changeTimes;
+
+    /**
+     * Time when each node met the facts of its in-edges for the last time,
+     * indexed by the ranks of the nodes in {@link #workList}.
+     * As IN facts only grow during solving, the transferred fact of
+     * an in-edge needs neither to be computed nor to be met again
+     * until the OUT fact of its source changes after this time.
+     */
+    private int[] meetTimes;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
@@ -71,7 +91,11 @@ class InterSolver<Method, Node, Fact> {
     }
 
     private void initialize() {
-        workList = new LinkedList<>();
+        workList = new InterWorkList<>(icfg);
+        time = 0;
+        changeTimes = new int[workList.getNumberOfNodes()];
+        meetTimes = new int[workList.getNumberOfNodes()];
+        Arrays.fill(meetTimes, -1);
 
         // TODO - finish me
         Set<Node> entries = icfg.entryMethods().map(icfg::getEntryOf)
@@ -100,12 +124,19 @@ class InterSolver<Method, Node, Fact> {
             Fact out = result.getOutFact(node);
 
             // meet all incoming edges
+            int rank = workList.getRank(node);
+            int lastMeet = meetTimes[rank];
+            meetTimes[rank] = time;
             for (ICFGEdge<Node> inEdge : icfg.getInEdgesOf(node)) {
-                analysis.meetInto(analysis.transferEdge(inEdge, result.getOutFact(inEdge.getSource())), in);    // refresh inFact
+                Node source = inEdge.getSource();
+                if (changeTimes[workList.getRank(source)] > lastMeet) {
+                    analysis.meetInto(analysis.transferEdge(inEdge, result.getOutFact(source)), in);    // refresh inFact
+                }
             }
             if (analysis.transferNode(node, in, out)) { // 有变化
+                changeTimes[rank] = ++time;
                 for (Node success : icfg.getSuccsOf(node)) {
-                    workList.offer(success);
+                    workList.add(success);
                 }
             }
         }
@@ -0,0 +1,219 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.ICFG;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work-list of {@link InterSolver}, which contains each node at most once,
+ * and always returns the node with the highest priority.
+ * <p>
+ * The nodes are prioritized by the callee-first order of their methods,
+ * i.e., the post-order of the methods in the call graph, so that the
+ * changes in a callee are propagated before the solver continues with
+ * its callers; and the nodes of the same method are prioritized by
+ * their reverse post-order in the method, so that a node is usually
+ * processed after its predecessors.
+ */
+class InterWorkList<Method, Node> {
+
+    /**
+     * Nodes ordered by their priorities.
+     */
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Positions of the nodes in {@link #nodes}.
+     */
+    private final Map<Node, Integer> ranks = new HashMap<>();
+
+    /**
+     * Ranks of the nodes in this work-list.
+     */
+    private final BitSet members = new BitSet();
+
+    /**
+     * No node in this work-list has rank lower than this.
+     */
+    private int lowest;
+
+    private int size;
+
+    InterWorkList(ICFG<Method, Node> icfg) {
+        Map<Method, List<Node>> methodNodes = new LinkedHashMap<>();
+        for (Node node : icfg) {
+            methodNodes.computeIfAbsent(icfg.getContainingMethodOf(node),
+                    m -> new ArrayList<>()).add(node);
+        }
+        Set<Method> visited = new HashSet<>();
+        icfg.entryMethods().forEach(m ->
+                rankMethods(icfg, m, methodNodes, visited));
+        methodNodes.keySet().forEach(m ->
+                rankMethods(icfg, m, methodNodes, visited));
+    }
+
+    /**
+     * Ranks the methods reachable from given method in post-order
+     * of the call graph.
+     */
+    private void rankMethods(ICFG<Method, Node> icfg, Method method,
+                             Map<Method, List<Node>> methodNodes,
+                             Set<Method> visited) {
+        if (!visited.add(method)) {
+            return;
+        }
+        Deque<Method> stack = new ArrayDeque<>();
+        Deque<Iterator<Method>> callees = new ArrayDeque<>();
+        stack.push(method);
+        callees.push(getCallees(icfg, method, methodNodes).iterator());
+        while (!stack.isEmpty()) {
+            if (callees.peek().hasNext()) {
+                Method callee = callees.peek().next();
+                if (visited.add(callee)) {
+                    stack.push(callee);
+                    callees.push(getCallees(icfg, callee, methodNodes).iterator());
+                }
+            } else {
+                callees.pop();
+                rankNodes(icfg, stack.pop(), methodNodes);
+            }
+        }
+    }
+
+    private List<Method> getCallees(ICFG<Method, Node> icfg, Method method,
+                                    Map<Method, List<Node>> methodNodes) {
+        List<Method> callees = new ArrayList<>();
+        for (Node node : methodNodes.getOrDefault(method, List.of())) {
+            if (icfg.isCallSite(node)) {
+                // skips the callees absent from the ICFG
+                icfg.getCalleesOf(node).forEach(callee -> {
+                    if (methodNodes.containsKey(callee)) {
+                        callees.add(callee);
+                    }
+                });
+            }
+        }
+        return callees;
+    }
+
+    /**
+     * Ranks the nodes of given method in reverse post-order.
+     */
+    private void rankNodes(ICFG<Method, Node> icfg, Method method,
+                           Map<Method, List<Node>> methodNodes) {
+        List<Node> postOrder = new ArrayList<>();
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> succs = new ArrayDeque<>();
+        Node entry = icfg.getEntryOf(method);
+        List<Node> roots = new ArrayList<>();
+        if (entry != null) {
+            roots.add(entry);
+        }
+        // nodes unreachable from the entry are also ranked
+        roots.addAll(methodNodes.getOrDefault(method, List.of()));
+        for (Node root : roots) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            stack.push(root);
+            succs.push(icfg.getSuccsOf(root).iterator());
+            while (!stack.isEmpty()) {
+                if (succs.peek().hasNext()) {
+                    Node succ = succs.peek().next();
+                    if (icfg.getContainingMethodOf(succ).equals(method)
+                            && visited.add(succ)) {
+                        stack.push(succ);
+                        succs.push(icfg.getSuccsOf(succ).iterator());
+                    }
+                } else {
+                    succs.pop();
+                    postOrder.add(stack.pop());
+                }
+            }
+        }
+        for (int i = postOrder.size() - 1; i >= 0; --i) {
+            Node node = postOrder.get(i);
+            ranks.put(node, nodes.size());
+            nodes.add(node);
+        }
+    }
+
+    /**
+     * @return the rank of given node. The ranks number the ranked nodes
+     * from 0 to {@link #getNumberOfNodes()} - 1.
+     */
+    int getRank(Node node) {
+        return ranks.get(node);
+    }
+
+    /**
+     * @return the number of ranked nodes.
+     */
+    int getNumberOfNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Adds given node to this work-list if it is not in the work-list.
+     */
+    void add(Node node) {
+        int rank = ranks.get(node);
+        if (!members.get(rank)) {
+            members.set(rank);
+            lowest = Math.min(lowest, rank);
+            ++size;
+        }
+    }
+
+    /**
+     * Removes and returns the node with the highest priority.
+     */
+    Node poll() {
+        int rank = members.nextSetBit(lowest);
+        members.clear(rank);
+        lowest = rank;
+        --size;
+        return nodes.get(rank);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+}